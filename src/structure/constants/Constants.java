@@ -95,6 +95,17 @@ public class Constants {
      */
     public static final float DEFAULT_GRID_CELL_SIZE = 1.0f;
     //--------------------------------------------------------------------------
+    /**
+     * Default bin size of 6.0 Angstroem for cell lists of atoms.
+     */
+    public static final float DEFAULT_CELL_LIST_BIN_SIZE = 6.0f;
+    //--------------------------------------------------------------------------
+    /**
+     * Maximum number of target cells for which a goal-directed A* search is
+     * used. Searches with more targets fall back to Dijkstra's algorithm.
+     */
+    public static final int MAX_GOAL_DIRECTED_TARGETS = 4;
+    //--------------------------------------------------------------------------
     /**
      * Default grid distance value.
      */
@@ -219,4 +230,9 @@ public class Constants {
      */
     public enum BondTypes { SINGLE_BOND, float_BOND, TRIPLE_BOND,
                             AROMATIC_BOND, CROSS_LINK};
+
+    /**
+     * Supported shortest path algorithms for distance calculations on grids.
+     */
+    public enum ShortestPathAlgorithms { BFS, DIJKSTRA, ASTAR, FMM };
 }
@@ -0,0 +1,239 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ */
+
+package structure.grid;
+
+import structure.math.Point3f;
+import structure.matter.Atom;
+import structure.matter.AtomList;
+
+/**
+ * Uniform cell list over the atoms of a protein complex, which allows to
+ * quickly find all atoms within a box. Atoms are sorted into cubic bins by
+ * their centres, and the atoms of all bins are stored consecutively in a
+ * single array.
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class AtomCellList {
+
+    /**
+     * All atoms sorted by their bins.
+     */
+    private Atom[] atoms;
+
+    /**
+     * Position of the first atom of each bin in the atoms array. The last
+     * element holds the total number of atoms.
+     */
+    private int[] binStart;
+
+    /**
+     * Minimum Cartesian coordinate of all atom centres.
+     */
+    private Point3f min;
+
+    /**
+     * Edge length of the bins.
+     */
+    private float binSize;
+
+    /**
+     * Number of bins in the X dimension.
+     */
+    private int noOfxBins;
+
+    /**
+     * Number of bins in the Y dimension.
+     */
+    private int noOfyBins;
+
+    /**
+     * Number of bins in the Z dimension.
+     */
+    private int noOfzBins;
+
+    /**
+     * Largest van der Waals radius of all atoms.
+     */
+    private float maxRadius;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param atomList
+     *        - AtomList object holding all atoms to be sorted into bins.
+     * @param binSize
+     *        - float value representing the edge length of the bins.
+     */
+    public AtomCellList(final AtomList atomList, final float binSize) {
+        this.binSize = binSize;
+
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        float maxZ = -Float.MAX_VALUE;
+        for (Atom atom : atomList) {
+            Point3f xyz = atom.getXYZ();
+            minX = Math.min(minX, xyz.getX());
+            minY = Math.min(minY, xyz.getY());
+            minZ = Math.min(minZ, xyz.getZ());
+            maxX = Math.max(maxX, xyz.getX());
+            maxY = Math.max(maxY, xyz.getY());
+            maxZ = Math.max(maxZ, xyz.getZ());
+            this.maxRadius = Math.max(this.maxRadius,
+                                      atom.getVanDerWaalsRadius());
+        }
+        if (atomList.size() == 0) {
+            minX = 0;
+            minY = 0;
+            minZ = 0;
+            maxX = 0;
+            maxY = 0;
+            maxZ = 0;
+        }
+        this.min = new Point3f(minX, minY, minZ);
+        this.noOfxBins = (int) ((maxX - minX) / binSize) + 1;
+        this.noOfyBins = (int) ((maxY - minY) / binSize) + 1;
+        this.noOfzBins = (int) ((maxZ - minZ) / binSize) + 1;
+
+        // counting sort of all atoms by their bins.
+        int[] bins = new int[atomList.size()];
+        this.binStart = new int[this.noOfxBins * this.noOfyBins
+                                               * this.noOfzBins + 1];
+        for (int i = 0; i < atomList.size(); i++) {
+            Point3f xyz = atomList.get(i).getXYZ();
+            bins[i] = (this.getBin(xyz.getX(), minX, this.noOfxBins)
+                       * this.noOfyBins
+                       + this.getBin(xyz.getY(), minY, this.noOfyBins))
+                       * this.noOfzBins
+                       + this.getBin(xyz.getZ(), minZ, this.noOfzBins);
+            this.binStart[bins[i] + 1]++;
+        }
+        for (int b = 1; b < this.binStart.length; b++) {
+            this.binStart[b] += this.binStart[b - 1];
+        }
+        int[] fill = new int[this.binStart.length - 1];
+        System.arraycopy(this.binStart, 0, fill, 0, fill.length);
+        this.atoms = new Atom[atomList.size()];
+        for (int i = 0; i < atomList.size(); i++) {
+            this.atoms[fill[bins[i]]++] = atomList.get(i);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the bin number of a coordinate along a single dimension.
+     * Coordinates outside the cell list are assigned to the border bins.
+     * @param coordinate
+     *        - float value representing the Cartesian coordinate.
+     * @param minimum
+     *        - float value representing the minimum Cartesian coordinate of
+     *          the cell list in this dimension.
+     * @param noOfBins
+     *        - integer value representing the number of bins in this
+     *          dimension.
+     * @return integer value representing the bin number.
+     */
+    private int getBin(final float coordinate,
+                       final float minimum,
+                       final int noOfBins) {
+        int bin = (int) Math.floor((coordinate - minimum) / this.binSize);
+        return Math.max(0, Math.min(noOfBins - 1, bin));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns all atoms whose van der Waals sphere overlaps a box.
+     * @param minimum
+     *        - Point3f object holding the minimum Cartesian coordinates of the
+     *          box.
+     * @param maximum
+     *        - Point3f object holding the maximum Cartesian coordinates of the
+     *          box.
+     * @return AtomList object holding all overlapping atoms.
+     */
+    public final AtomList getAtoms(final Point3f minimum,
+                                   final Point3f maximum) {
+        AtomList list = new AtomList();
+        int minI = this.getBin(minimum.getX() - this.maxRadius,
+                               this.min.getX(), this.noOfxBins);
+        int minJ = this.getBin(minimum.getY() - this.maxRadius,
+                               this.min.getY(), this.noOfyBins);
+        int minK = this.getBin(minimum.getZ() - this.maxRadius,
+                               this.min.getZ(), this.noOfzBins);
+        int maxI = this.getBin(maximum.getX() + this.maxRadius,
+                               this.min.getX(), this.noOfxBins);
+        int maxJ = this.getBin(maximum.getY() + this.maxRadius,
+                               this.min.getY(), this.noOfyBins);
+        int maxK = this.getBin(maximum.getZ() + this.maxRadius,
+                               this.min.getZ(), this.noOfzBins);
+        for (int i = minI; i <= maxI; i++) {
+            for (int j = minJ; j <= maxJ; j++) {
+                int bin = (i * this.noOfyBins + j) * this.noOfzBins;
+                for (int a = this.binStart[bin + minK];
+                     a < this.binStart[bin + maxK + 1];
+                     a++) {
+                    Atom atom = this.atoms[a];
+                    if (AtomCellList.overlaps(atom, minimum, maximum)) {
+                        list.add(atom);
+                    }
+                }
+            }
+        }
+        return list;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns all atoms whose van der Waals sphere overlaps a cube around an
+     * atom.
+     * @param atom
+     *        - Atom object at the centre of the cube.
+     * @param distance
+     *        - float value representing half the edge length of the cube.
+     * @return AtomList object holding all overlapping atoms.
+     */
+    public final AtomList getAtoms(final Atom atom, final float distance) {
+        return this.getAtoms(atom.getXYZ().add(-distance, -distance, -distance),
+                             atom.getXYZ().add(distance, distance, distance));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether the van der Waals sphere of an atom overlaps a box.
+     * @param atom
+     *        - Atom object to be checked.
+     * @param minimum
+     *        - Point3f object holding the minimum Cartesian coordinates of the
+     *          box.
+     * @param maximum
+     *        - Point3f object holding the maximum Cartesian coordinates of the
+     *          box.
+     * @return {@code TRUE} if the sphere overlaps the box, {@code FALSE}
+     *         otherwise.
+     */
+    private static boolean overlaps(final Atom atom,
+                                    final Point3f minimum,
+                                    final Point3f maximum) {
+        Point3f xyz = atom.getXYZ();
+        double dx = Math.max(0, Math.max(minimum.getX() - xyz.getX(),
+                                         xyz.getX() - maximum.getX()));
+        double dy = Math.max(0, Math.max(minimum.getY() - xyz.getY(),
+                                         xyz.getY() - maximum.getY()));
+        double dz = Math.max(0, Math.max(minimum.getZ() - xyz.getZ(),
+                                         xyz.getZ() - maximum.getZ()));
+        double radius = atom.getVanDerWaalsRadius();
+        return dx * dx + dy * dy + dz * dz <= radius * radius;
+    }
+}
@@ -17,7 +17,8 @@ package structure.grid;
 import java.util.ArrayList;
 
 import structure.constants.Constants;
-import structure.math.Mathematics;
+import structure.math.Point3f;
+import structure.math.Point3i;
 import structure.matter.Atom;
 import structure.matter.AtomList;
 import structure.matter.MatterUtilities;
@@ -76,24 +77,138 @@ public class AtomGrid extends Grid {
                     final Atom atom,
                     final float size,
                     final float gridCellSize) {
+        this(atomList, atom, size, gridCellSize, new GridArena());
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Constructor, which reuses the storage of a grid arena.
+     * @param atomList
+     *        - AtomList object on which Grid should be build upon.
+     * @param atom
+     *        - Atom object around which the grid is to be generated.
+     * @param size
+     *        - maximum size of local grid
+     * @param gridCellSize
+     *        - float value representing the cell edge length of each grid cell
+     * @param arena
+     *        - GridArena object that provides the storage of this grid. Any
+     *          grid that has been build before on the same arena becomes
+     *          invalid.
+     */
+    public AtomGrid(final AtomList atomList,
+                    final Atom atom,
+                    final float size,
+                    final float gridCellSize,
+                    final GridArena arena) {
         super(atom.getXYZ().add(-size - 1, -size - 1, -size - 1),
               atom.getXYZ().add(size + 1, size + 1, size + 1),
-              gridCellSize);
+              gridCellSize,
+              arena);
 
         this.atoms = atomList;
         this.setOccupancy();
     }
     //-------------------------------------------------------------------------
+    /**
+     * Constructor for a local window onto a larger grid, e.g. a grid that has
+     * been build once for an entire protein complex. The window has the same
+     * number of grid cells as a local grid build with
+     * {@link #AtomGrid(AtomList, Atom, float, float)}, but its grid cells are
+     * aligned to the grid cells of the larger grid, from which the occupation
+     * status is copied. The window holds its own copy of the occupation
+     * status, so that grid cells can be unoccupied without affecting the
+     * larger grid.
+     * @param atomGrid
+     *        - AtomGrid object onto which the window is to be set.
+     * @param atom
+     *        - Atom object around which the window is to be set.
+     * @param size
+     *        - maximum size of the window.
+     */
+    public AtomGrid(final AtomGrid atomGrid,
+                    final Atom atom,
+                    final float size) {
+        this(atomGrid, atom, size, new GridArena());
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Constructor for a local window onto a larger grid, which reuses the
+     * storage of a grid arena.
+     * @param atomGrid
+     *        - AtomGrid object onto which the window is to be set.
+     * @param atom
+     *        - Atom object around which the window is to be set.
+     * @param size
+     *        - maximum size of the window.
+     * @param arena
+     *        - GridArena object that provides the storage of this window. Any
+     *          grid that has been build before on the same arena becomes
+     *          invalid.
+     * @see #AtomGrid(AtomGrid, Atom, float)
+     */
+    public AtomGrid(final AtomGrid atomGrid,
+                    final Atom atom,
+                    final float size,
+                    final GridArena arena) {
+        super(AtomGrid.getAlignedMinimum(atomGrid, atom, size),
+              AtomGrid.getAlignedMinimum(atomGrid, atom, size).add(
+                                                                size * 2 + 2,
+                                                                size * 2 + 2,
+                                                                size * 2 + 2),
+              atomGrid.getCellSize(),
+              arena);
+
+        this.atoms = new AtomList();
+        float cellSize = atomGrid.getCellSize();
+        this.copyOccupation(atomGrid, new Point3i(
+                Math.round((this.getMin().getX() - atomGrid.getMin().getX())
+                           / cellSize),
+                Math.round((this.getMin().getY() - atomGrid.getMin().getY())
+                           / cellSize),
+                Math.round((this.getMin().getZ() - atomGrid.getMin().getZ())
+                           / cellSize)));
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Returns the minimum Cartesian coordinate of a local window around an
+     * atom, which is aligned to the grid cells of a larger grid.
+     * @param atomGrid
+     *        - AtomGrid object onto which the window is to be set.
+     * @param atom
+     *        - Atom object around which the window is to be set.
+     * @param size
+     *        - maximum size of the window.
+     * @return Point3f object holding the minimum Cartesian coordinate.
+     */
+    private static Point3f getAlignedMinimum(final AtomGrid atomGrid,
+                                             final Atom atom,
+                                             final float size) {
+        Point3f min = atomGrid.getMin();
+        Point3f xyz = atom.getXYZ().add(-size - 1, -size - 1, -size - 1);
+        float cellSize = atomGrid.getCellSize();
+        int i = (int) Math.floor((xyz.getX() - min.getX()) / cellSize);
+        int j = (int) Math.floor((xyz.getY() - min.getY()) / cellSize);
+        int k = (int) Math.floor((xyz.getZ() - min.getZ()) / cellSize);
+        return min.add(i * cellSize, j * cellSize, k * cellSize);
+    }
+    //-------------------------------------------------------------------------
     /**
      * Sets the occupied flag for all grid cells in a grid for a list of atom
      * coordinates.
      */
     private void setOccupancy() {
-
+        int[] indices = new int[0];
         for (Atom atom : this.atoms) {
-            ArrayList < GridCell > cells = this.getAllGridCells(atom);
-            for (GridCell cell : cells) {
-                cell.setOccupation();
+            SphereStencil stencil = SphereStencil.get(
+                                                   atom.getVanDerWaalsRadius(),
+                                                   this.getCellSize(),
+                                                   0);
+            if (indices.length < stencil.getMaximumSize() + 1) {
+                indices = new int[stencil.getMaximumSize() + 1];
+            }
+            int n = this.getAllGridCellIndices(atom, stencil, indices);
+            for (int i = 0; i < n; i++) {
+                this.setOccupation(indices[i]);
             }
         }
     }
@@ -108,17 +223,19 @@ public class AtomGrid extends Grid {
      */
     public final GridCell get(final Atom atom) {
 
+        double cellSize = this.getCellSize();
+
         int i = (int) ((atom.getXYZ().getX() - this.getMin().getX())
                        /
-                       GridCell.getSize());
+                       cellSize);
 
         int j = (int) ((atom.getXYZ().getY() - this.getMin().getY())
                        /
-                       GridCell.getSize());
+                       cellSize);
 
         int k = (int) ((atom.getXYZ().getZ() - this.getMin().getZ())
                        /
-                       GridCell.getSize());
+                       cellSize);
 
         if (i > 0 && i < this.getNumberOfCells().getI()
             && j > 0 && j < this.getNumberOfCells().getJ()
@@ -156,44 +273,121 @@ public class AtomGrid extends Grid {
      */
     public final ArrayList < GridCell > getAllGridCells(final Atom atom,
                                                         final int expand) {
-        ArrayList < GridCell > allCells = new ArrayList < GridCell >();
-
+        int[] indices = this.getAllGridCellIndices(atom, expand);
+        ArrayList < GridCell > allCells = new ArrayList < GridCell >(
+                                                                 indices.length
+                                                                    );
+        for (int index : indices) {
+            allCells.add(new GridCell(this, index));
+        }
+        return allCells;
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Returns the flat indices of all grid cell that are occupied by the
+     * entire van der Waals atom shell of an atom.
+     * @param atom
+     *        - Atom object to which all occupied grid cells should be returned.
+     * @param expand
+     *        - integer value representing the number of shells from which
+     *          neighborhood is to be extracted.
+     * @return Array of integer values holding the flat indices of all grid
+     *         cells that are occupying the atom.
+     */
+    public final int[] getAllGridCellIndices(final Atom atom,
+                                             final int expand) {
+        SphereStencil stencil = SphereStencil.get(atom.getVanDerWaalsRadius(),
+                                                  this.getCellSize(),
+                                                  expand);
+        int[] indices = new int[stencil.getMaximumSize() + 1];
+        int n = this.getAllGridCellIndices(atom, stencil, indices);
+        int[] allIndices = new int[n];
+        System.arraycopy(indices, 0, allIndices, 0, n);
+        return allIndices;
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Writes the flat indices of all grid cell that are occupied by the entire
+     * van der Waals atom shell of an atom into an array. The grid cell closest
+     * to the atom centre comes first, followed by all grid cells of the
+     * stencil that lie within the atom sphere, in the same order as they are
+     * enumerated by GridUtilities.getNeighbouringCells(). Only grid cells
+     * close to the sphere surface are checked by their Euclidean distance.
+     * @param atom
+     *        - Atom object to which all occupied grid cells should be returned.
+     * @param stencil
+     *        - SphereStencil object for the van der Waals radius of the atom.
+     * @param indices
+     *        - Array of integer values into which the flat indices are
+     *          written. Must hold at least {@code stencil.getMaximumSize() + 1}
+     *          values.
+     * @return integer value representing the number of indices written. If
+     *         the atom lies outside the grid, then {@code 0} is returned.
+     * @see GridUtilities#getNeighbouringCells(GridCell, Grid, int)
+     */
+    private int getAllGridCellIndices(final Atom atom,
+                                      final SphereStencil stencil,
+                                      final int[] indices) {
         float radius = atom.getVanDerWaalsRadius();
+        float cellSize = this.getCellSize();
+        Point3f min = this.getMin();
+        Point3f xyz = atom.getXYZ();
+        Point3i noOfCells = this.getNumberOfCells();
+        int nx = noOfCells.getI();
+        int ny = noOfCells.getJ();
+        int nz = noOfCells.getK();
 
-        GridCell centre = this.get(atom);
+        double fi = (xyz.getX() - min.getX()) / (double) cellSize;
+        double fj = (xyz.getY() - min.getY()) / (double) cellSize;
+        double fk = (xyz.getZ() - min.getZ()) / (double) cellSize;
+        int i = (int) fi;
+        int j = (int) fj;
+        int k = (int) fk;
 
         // if atom should lie outside the grid, then just return an empty list
-        // of GridCell objects.
-        if (centre != null) {
-          int expand2 = GridUtilities.getNumberOfGridCellsFittingIntoHemisphere(
-                                                              radius,
-                                                              GridCell.getSize()
-                                                                              )
-                       + expand;
-
-           ArrayList < GridCell > neighboursCube =
-                                             GridUtilities.getNeighbouringCells(
-                                                                         centre,
-                                                                         this,
-                                                                         expand2
-                                                                              );
-
-           // check that grid cell really is located within atom vdW sphere.
-           ArrayList < GridCell > neighbours = new ArrayList < GridCell >();
-           for (GridCell neighbour : neighboursCube) {
-               float dist = Mathematics.distance(
-                                                  atom.getXYZ(),
-                                                  neighbour.getXYZ()
-                                                  );
-               if (dist - radius - (GridCell.getSize() * expand) < 0) {
-                   neighbours.add(neighbour);
-               }
-           }
-
-           allCells.add(centre);
-           allCells.addAll(neighbours);
+        // of grid cells.
+        if (!(i > 0 && i < nx && j > 0 && j < ny && k > 0 && k < nz)) {
+            return 0;
+        }
+        indices[0] = (i * ny + j) * nz + k;
+        int n = 1;
+
+        // exactly as GridUtilities.getNeighbouringCells(), no neighbours are
+        // returned if the cube around the atom extends over the lower grid
+        // borders, but the cube is clipped at the upper grid borders.
+        int extent = stencil.getExtent();
+        if (i - extent < 0 || j - extent < 0 || k - extent < 0) {
+            return n;
+        }
+        boolean clip = i + extent >= nx || j + extent >= ny || k + extent >= nz;
+
+        int bucket = SphereStencil.getBucket(fi - i, fj - j, fk - k);
+        int[] offsets = stencil.getOffsets(bucket);
+        boolean[] checks = stencil.getChecks(bucket);
+        double expansion = (double) cellSize * stencil.getExpand();
+        for (int s = 0; s < checks.length; s++) {
+            int ci = i + offsets[3 * s];
+            int cj = j + offsets[3 * s + 1];
+            int ck = k + offsets[3 * s + 2];
+            if (clip && (ci >= nx || cj >= ny || ck >= nz)) {
+                continue;
+            }
+            if (checks[s]) {
+                // check that grid cell really is located within atom vdW
+                // sphere.
+                float x = min.getX() + (ci * cellSize) + (cellSize / 2);
+                float y = min.getY() + (cj * cellSize) + (cellSize / 2);
+                float z = min.getZ() + (ck * cellSize) + (cellSize / 2);
+                float dist = (float) Math.sqrt(Math.pow(x - xyz.getX(), 2)
+                                             + Math.pow(y - xyz.getY(), 2)
+                                             + Math.pow(z - xyz.getZ(), 2));
+                if (!(dist - radius - expansion < 0)) {
+                    continue;
+                }
+            }
+            indices[n++] = (ci * ny + cj) * nz + ck;
         }
-    return allCells;
+        return n;
     }
     //-------------------------------------------------------------------------
     /**
@@ -14,12 +14,25 @@
 
 package structure.grid;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import structure.constants.Constants;
 import structure.math.Point3f;
 import structure.math.Point3i;
 import structure.matter.Atom;
 
 /**
- * Class for handling general grid objects.
+ * Class for handling general grid objects. The occupation status of all grid
+ * cells is kept in a packed bitset and their distances in a flat float array,
+ * both being indexed by {@code (i * noOfyCells + j) * noOfzCells + k}. The
+ * Cartesian coordinates of a grid cell are not stored, but computed from its
+ * indices. GridCell objects returned by this grid are light-weight views onto
+ * these arrays. The arrays are provided by a GridArena, which can be reused
+ * by consecutive grids and might hold them in direct buffers outside of the
+ * Java heap instead.
  * @author Abdullah Kahraman
  * @version 0.1
  * @since 0.1
@@ -27,9 +40,84 @@ import structure.matter.Atom;
 public class Grid {
 
     /**
-     * Grid cells that constitute the grid.
+     * Occupation status of all grid cells, 64 grid cells per long value.
+     */
+    private long[] occupied;
+
+    /**
+     * Occupation status of all grid cells, if the storage is held outside of
+     * the Java heap.
+     */
+    private LongBuffer occupiedBuffer;
+
+    /**
+     * Boolean indicating whether the storage is held outside of the Java
+     * heap in buffers rather than in arrays.
+     */
+    private boolean isOffHeap;
+
+    /**
+     * Slot in the page storage of each page of grid cells, see
+     * {@link GridArena}.
+     */
+    private int[] pageSlots;
+
+    /**
+     * Epoch numbers at which the pages have been materialized. Pages with
+     * another epoch number than the one of this grid hold no distances.
      */
-    private GridCell[][][] gridCells;
+    private int[] pageStamps;
+
+    /**
+     * Distances of the grid cells in materialized pages to some reference
+     * grid cell.
+     */
+    private float[] distances;
+
+    /**
+     * Distances of the grid cells in materialized pages, if the storage is
+     * held outside of the Java heap.
+     */
+    private FloatBuffer distanceBuffer;
+
+    /**
+     * Epoch numbers at which the distances have been set. Distances with
+     * another epoch number than the one of this grid are regarded as unset.
+     */
+    private int[] stamps;
+
+    /**
+     * Epoch numbers of the distances, if the storage is held outside of the
+     * Java heap.
+     */
+    private IntBuffer stampBuffer;
+
+    /**
+     * Epoch number of this grid.
+     */
+    private int epoch;
+
+    /**
+     * Directions towards the predecessor of each grid cell on its shortest
+     * path. {@code NULL} unless {@link #enablePredecessors()} has been called.
+     */
+    private byte[] predecessors;
+
+    /**
+     * Directions towards the predecessors, if the storage is held outside of
+     * the Java heap.
+     */
+    private ByteBuffer predecessorBuffer;
+
+    /**
+     * GridArena object that provides the storage of this grid.
+     */
+    private GridArena arena;
+
+    /**
+     * Total number of grid cells.
+     */
+    private int noOfCells;
 
     /**
      * Stores the maximum Cartesian coordinates of the grid.
@@ -41,6 +129,11 @@ public class Grid {
      */
     private Point3f min;
 
+    /**
+     * Length of the grid cell edges.
+     */
+    private float cellSize;
+
     /**
      * Stores the number of cells in the X dimension.
      */
@@ -70,29 +163,43 @@ public class Grid {
     public Grid(final Point3f minimum,
                 final Point3f maximum,
                 final float gridCellSize) {
+        this(minimum, maximum, gridCellSize, new GridArena());
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor, which reuses the storage of a grid arena. Any grid that has
+     * been build before on the same arena becomes invalid.
+     * @param minimum
+     *        - Point3f object holding the minimum X,Y,Z Cartesian coordinates
+     *          of this grid.
+     * @param maximum
+     *        - Point3f object holding the maximum X,Y,Z Cartesian coordinates
+     *          of this grid.
+     * @param gridCellSize
+     *        - float value representing the size of all grid cells i.e. their
+     *          cell edge length.
+     * @param gridArena
+     *        - GridArena object that provides the storage of this grid.
+     */
+    public Grid(final Point3f minimum,
+                final Point3f maximum,
+                final float gridCellSize,
+                final GridArena gridArena) {
         this.min = minimum;
         this.max = maximum;
+        this.cellSize = gridCellSize;
         this.setNumberOfCells(gridCellSize);
-        this.gridCells = new GridCell[this.noOfxCells]
-                                     [this.noOfyCells]
-                                     [this.noOfzCells];
 
-        for (int i = 0; i < this.noOfxCells; i++) {
-            for (int j = 0; j < this.noOfyCells; j++) {
-                for (int k = 0; k < this.noOfzCells; k++) {
-                     float x = this.min.getX() + (i * gridCellSize)
-                                                           + (gridCellSize / 2);
-                     float y = this.min.getY() + (j * gridCellSize)
-                                                           + (gridCellSize / 2);
-                     float z = this.min.getZ() + (k * gridCellSize)
-                                                           + (gridCellSize / 2);
-
-                    this.gridCells[i][j][k] = new GridCell(new Point3f(x, y, z),
-                                                           gridCellSize);
-                    this.gridCells[i][j][k].setIndices(new Point3i(i, j, k));
-                }
-            }
-        }
+        this.noOfCells = this.noOfxCells * this.noOfyCells * this.noOfzCells;
+        this.arena = gridArena;
+        this.arena.acquire(this.noOfCells);
+        this.isOffHeap = this.arena.isOffHeap();
+        this.occupied = this.arena.getOccupied();
+        this.occupiedBuffer = this.arena.getOccupiedBuffer();
+        this.pageSlots = this.arena.getPageSlots();
+        this.pageStamps = this.arena.getPageStamps();
+        this.refreshPages();
+        this.epoch = this.arena.getEpoch();
     }
 
     //--------------------------------------------------------------------------
@@ -114,6 +221,22 @@ public class Grid {
         return this.max;
     }
     //--------------------------------------------------------------------------
+    /**
+     * Returns the edge length of the grid cells in this grid.
+     * @return float value representing the size of all grid cells.
+     */
+    public final float getCellSize() {
+        return this.cellSize;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the grid arena that provides the storage of this grid.
+     * @return GridArena object.
+     */
+    public final GridArena getArena() {
+        return this.arena;
+    }
+    //--------------------------------------------------------------------------
     /**
      * Calculates the number of cells in all three XYZ Cartesian dimensions.
      * @param gridCellSize
@@ -147,6 +270,342 @@ public class Grid {
         return new Point3i(this.noOfxCells, this.noOfyCells, this.noOfzCells);
     }
     //--------------------------------------------------------------------------
+    /**
+     * Returns the total number of grid cells in this grid.
+     * @return integer value representing the number of grid cells.
+     */
+    public final int size() {
+        return this.noOfCells;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the flat index of a grid cell.
+     * @param i
+     *        - integer value representing the index on the X dimension.
+     * @param j
+     *        - integer value representing the index on the Y dimension.
+     * @param k
+     *        - integer value representing the index on the Z dimension.
+     * @return integer value representing the flat index of the grid cell. If
+     *         indices extend over grid borders, then {@code -1} is returned.
+     */
+    public final int getIndex(final int i, final int j, final int k) {
+        if (i >= 0 && j >= 0 && k >= 0
+            &&
+            i < this.noOfxCells && j < this.noOfyCells && k < this.noOfzCells) {
+            return (i * this.noOfyCells + j) * this.noOfzCells + k;
+        }
+        return -1;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the index on the X dimension of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the index on the X dimension.
+     */
+    public final int getI(final int index) {
+        return index / (this.noOfyCells * this.noOfzCells);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the index on the Y dimension of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the index on the Y dimension.
+     */
+    public final int getJ(final int index) {
+        return (index / this.noOfzCells) % this.noOfyCells;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the index on the Z dimension of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the index on the Z dimension.
+     */
+    public final int getK(final int index) {
+        return index % this.noOfzCells;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the Cartesian coordinates of the center of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return Point3f object holding the Cartesian coordinates.
+     */
+    public final Point3f getXYZ(final int index) {
+        float x = this.min.getX() + (this.getI(index) * this.cellSize)
+                                                         + (this.cellSize / 2);
+        float y = this.min.getY() + (this.getJ(index) * this.cellSize)
+                                                         + (this.cellSize / 2);
+        float z = this.min.getZ() + (this.getK(index) * this.cellSize)
+                                                         + (this.cellSize / 2);
+        return new Point3f(x, y, z);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the occupation status of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return {@code TRUE} if cell has been labeled as occupied,
+     *         {@code FALSE} otherwise.
+     */
+    public final boolean isOccupied(final int index) {
+        return (this.getWord(index >>> 6) & (1L << index)) != 0;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the occupation status of a grid cell to {@code TRUE}.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     */
+    public final void setOccupation(final int index) {
+        int w = index >>> 6;
+        this.setWord(w, this.getWord(w) | (1L << index));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the occupation status of a grid cell to {@code FALSE}.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     */
+    public final void unsetOccupation(final int index) {
+        int w = index >>> 6;
+        this.setWord(w, this.getWord(w) & ~(1L << index));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns a long value of the occupation status.
+     * @param w
+     *        - integer value representing the position of the long value.
+     * @return long value holding the occupation status of 64 grid cells.
+     */
+    private long getWord(final int w) {
+        if (this.isOffHeap) {
+            return this.occupiedBuffer.get(w);
+        }
+        return this.occupied[w];
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets a long value of the occupation status.
+     * @param w
+     *        - integer value representing the position of the long value.
+     * @param word
+     *        - long value holding the occupation status of 64 grid cells.
+     */
+    private void setWord(final int w, final long word) {
+        if (this.isOffHeap) {
+            this.occupiedBuffer.put(w, word);
+        } else {
+            this.occupied[w] = word;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Copies the occupation status of all grid cells along the Z dimension
+     * at some X and Y index into consecutive long values, with the grid cell
+     * at Z index {@code k} being bit {@code k % 64} of long value
+     * {@code k / 64}. Bits beyond the last grid cell are set to 0.
+     * @param i
+     *        - integer value representing the index on the X dimension.
+     * @param j
+     *        - integer value representing the index on the Y dimension.
+     * @param row
+     *        - Array of long values into which the occupation status is
+     *          copied.
+     * @param offset
+     *        - integer value representing the position of the first long
+     *          value in {@code row}.
+     */
+    public final void getOccupiedRow(final int i,
+                                     final int j,
+                                     final long[] row,
+                                     final int offset) {
+        int start = (i * this.noOfyCells + j) * this.noOfzCells;
+        int noOfWords = (this.noOfzCells + Long.SIZE - 1) / Long.SIZE;
+        int lastWord = this.getNumberOfWords() - 1;
+        for (int w = 0; w < noOfWords; w++) {
+            int bit = start + w * Long.SIZE;
+            int shift = bit & (Long.SIZE - 1);
+            long word = this.getWord(bit >>> 6) >>> shift;
+            if (shift != 0 && (bit >>> 6) < lastWord) {
+                word |= this.getWord((bit >>> 6) + 1) << (Long.SIZE - shift);
+            }
+            int remaining = this.noOfzCells - w * Long.SIZE;
+            if (remaining < Long.SIZE) {
+                word &= (1L << remaining) - 1;
+            }
+            row[offset + w] = word;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Copies the occupation status of all grid cells from another grid with
+     * the same cell size and aligned grid cells. Grid cells that lie outside
+     * the other grid are set to unoccupied.
+     * @param grid
+     *        - Grid object from which the occupation status is copied.
+     * @param offset
+     *        - Point3i object holding the indices of the grid cell in
+     *          {@code grid} that corresponds to the grid cell 0,0,0 in this
+     *          grid.
+     */
+    protected final void copyOccupation(final Grid grid, final Point3i offset) {
+        this.arena.clearWords(this.getNumberOfWords());
+        for (int i = 0; i < this.noOfxCells; i++) {
+            int si = i + offset.getI();
+            if (si < 0 || si >= grid.noOfxCells) {
+                continue;
+            }
+            for (int j = 0; j < this.noOfyCells; j++) {
+                int sj = j + offset.getJ();
+                if (sj < 0 || sj >= grid.noOfyCells) {
+                    continue;
+                }
+                int firstK = Math.max(0, -offset.getK());
+                int lastK = Math.min(this.noOfzCells,
+                                     grid.noOfzCells - offset.getK());
+                int index = (i * this.noOfyCells + j) * this.noOfzCells;
+                int sIndex = (si * grid.noOfyCells + sj) * grid.noOfzCells
+                             + offset.getK();
+                for (int k = firstK; k < lastK; k++) {
+                    if (grid.isOccupied(sIndex + k)) {
+                        this.setOccupation(index + k);
+                    }
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the distance of a grid cell to some reference grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return float value representing the distance.
+     */
+    public final float getDistance(final int index) {
+        int page = index >>> GridArena.PAGE_BITS;
+        if (this.pageStamps[page] != this.epoch) {
+            return Constants.DEFAULT_GRID_DISTANCE;
+        }
+        int position = (this.pageSlots[page] << GridArena.PAGE_BITS)
+                       | (index & (GridArena.PAGE_SIZE - 1));
+        if (this.isOffHeap) {
+            if (this.stampBuffer.get(position) != this.epoch) {
+                return Constants.DEFAULT_GRID_DISTANCE;
+            }
+            return this.distanceBuffer.get(position);
+        }
+        if (this.stamps[position] != this.epoch) {
+            return Constants.DEFAULT_GRID_DISTANCE;
+        }
+        return this.distances[position];
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the distance of a grid cell to some reference grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @param dist
+     *        - float value representing the distance.
+     */
+    public final void setDistance(final int index, final float dist) {
+        int position = this.getPosition(index);
+        if (this.isOffHeap) {
+            this.distanceBuffer.put(position, dist);
+            this.stampBuffer.put(position, this.epoch);
+        } else {
+            this.distances[position] = dist;
+            this.stamps[position] = this.epoch;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the position of a grid cell in the page storage and
+     * materializes its page, if no distance has been set within it yet.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the position.
+     */
+    private int getPosition(final int index) {
+        int page = index >>> GridArena.PAGE_BITS;
+        if (this.pageStamps[page] != this.epoch) {
+            this.arena.materialize(page);
+            // the page storage might have grown.
+            this.refreshPages();
+        }
+        return (this.pageSlots[page] << GridArena.PAGE_BITS)
+               | (index & (GridArena.PAGE_SIZE - 1));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Fetches the page storage from the arena, which replaces it whenever it
+     * grows.
+     */
+    private void refreshPages() {
+        if (this.isOffHeap) {
+            this.distanceBuffer = this.arena.getDistanceBuffer();
+            this.stampBuffer = this.arena.getStampBuffer();
+            if (this.predecessorBuffer != null) {
+                this.predecessorBuffer = this.arena.getPredecessorBuffer();
+            }
+        } else {
+            this.distances = this.arena.getDistances();
+            this.stamps = this.arena.getStamps();
+            if (this.predecessors != null) {
+                this.predecessors = this.arena.getPredecessors();
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Provides the storage for predecessor directions, which must be called
+     * before {@link #setPredecessor(int, int)} can be used. Grids that are
+     * never used for tracing back paths do not pay for this storage.
+     */
+    public final void enablePredecessors() {
+        if (this.isOffHeap) {
+            this.predecessorBuffer = this.arena.getPredecessorBuffer();
+        } else if (this.predecessors == null) {
+            this.predecessors = this.arena.getPredecessors();
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the direction towards the predecessor of a grid cell on its
+     * shortest path. The value is only meaningful if the distance of the grid
+     * cell has been set together with its predecessor.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the direction.
+     */
+    public final int getPredecessor(final int index) {
+        int position = this.getPosition(index);
+        if (this.isOffHeap) {
+            return this.predecessorBuffer.get(position);
+        }
+        return this.predecessors[position];
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the direction towards the predecessor of a grid cell on its
+     * shortest path.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @param direction
+     *        - integer value between 0 and 26 representing the direction.
+     */
+    public final void setPredecessor(final int index, final int direction) {
+        int position = this.getPosition(index);
+        if (this.isOffHeap) {
+            this.predecessorBuffer.put(position, (byte) direction);
+        } else {
+            this.predecessors[position] = (byte) direction;
+        }
+    }
+    //--------------------------------------------------------------------------
     /**
      * Returns a grid cell with the grid.
      * @param i
@@ -159,17 +618,11 @@ public class Grid {
      *         borders, then {@code NULL} is returned.
      */
     public final GridCell get(final int i, final int j, final int k) {
-        boolean indicesLarger0 = i >= 0 && j >= 0 && k >= 0;
-        boolean indicesSmallerMax = i < this.noOfxCells
-                                    &&
-                                    j < this.noOfyCells
-                                    &&
-                                    k < this.noOfzCells;
-        if (indicesLarger0 && indicesSmallerMax) {
-            return this.gridCells[i][j][k];
-        } else {
+        int index = this.getIndex(i, j, k);
+        if (index == -1) {
             return null;
         }
+        return new GridCell(this, index);
     }
     //--------------------------------------------------------------------------
     /**
@@ -177,27 +630,25 @@ public class Grid {
      * grid.
      */
     public final void reset() {
-
-        for (int i = 0; i < noOfxCells; i++) {
-            for (int j = 0; j < noOfyCells; j++) {
-                for (int k = 0; k < noOfzCells; k++) {
-                    this.gridCells[i][j][k].reset();
-                }
-            }
-        }
+        this.arena.clearWords(this.getNumberOfWords());
+        this.resetSoft();
     }
     //--------------------------------------------------------------------------
     /**
-     * Resets only the value leaving occupied status as it is.
+     * Resets only the value leaving occupied status as it is. The distances are
+     * not overwritten, but invalidated by a new epoch number.
      */
     public final void resetSoft() {
-        for (int i = 0; i < noOfxCells; i++) {
-            for (int j = 0; j < noOfyCells; j++) {
-                for (int k = 0; k < noOfzCells; k++) {
-                    this.gridCells[i][j][k].resetSoft();
-                }
-            }
-        }
+        this.epoch = this.arena.nextEpoch();
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of long values holding the occupation status of all
+     * grid cells.
+     * @return integer value representing the number of long values.
+     */
+    private int getNumberOfWords() {
+        return (this.noOfCells + Long.SIZE - 1) / Long.SIZE;
     }
     //--------------------------------------------------------------------------
     /**
@@ -206,17 +657,13 @@ public class Grid {
      */
     public final String toString() {
         StringBuffer output = new StringBuffer();
-        for (int i = 0; i < noOfxCells; i++) {
-             for (int j = 0; j < noOfyCells; j++) {
-                  for (int k = 0; k < noOfzCells; k++) {
-                       GridCell cell = this.get(i, j, k);
-                       Atom dummy = cell.toAtom();
-                       dummy.setName("C");
-                       dummy.setResidueName("GRD");
-                       dummy.setResidueNumber(1);
-                       output.append(dummy.toString());
-                }
-            }
+        for (int index = 0; index < this.size(); index++) {
+             GridCell cell = new GridCell(this, index);
+             Atom dummy = cell.toAtom();
+             dummy.setName("C");
+             dummy.setResidueName("GRD");
+             dummy.setResidueNumber(1);
+             output.append(dummy.toString());
         }
         return output.toString();
     }
@@ -0,0 +1,463 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ */
+
+package structure.grid;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Class holding the storage of grids, which can be reused by consecutive
+ * grids. Distances are stamped with an epoch number, so that all distances
+ * can be invalidated by increasing the epoch number instead of overwriting
+ * them. The storage grows to the largest grid that has been acquired.
+ * <p>
+ * Only the occupation status is stored for every grid cell. Distances and
+ * predecessors are stored in pages of {@link #PAGE_SIZE} grid cells with
+ * consecutive flat indices, i.e. a few neighbouring rows of grid cells along
+ * the Z dimension, which are only materialized when the first distance
+ * within them is set. Therefore a search that is bounded to some region of
+ * the grid only pays for the storage and initialization of this region.
+ * </p>
+ * <p>
+ * The storage is either held in arrays on the Java heap or in direct buffers
+ * outside of it. Buffers outside of the heap are not scanned by the garbage
+ * collector and do not count towards the maximum heap size, so that the heap
+ * only holds the atoms and results. They are allocated when the arena grows
+ * and reused by all further grids.
+ * </p>
+ * <p>
+ * A grid arena can only hold a single grid at a time. Acquiring a new grid
+ * invalidates all grids that have been acquired before from the same arena.
+ * Grid arenas must not be shared among threads.
+ * </p>
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class GridArena {
+
+    /**
+     * Number of bits of a flat grid cell index that address the grid cell
+     * within its page.
+     */
+    static final int PAGE_BITS = 9;
+
+    /**
+     * Number of grid cells per page.
+     */
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /**
+     * Boolean indicating whether the storage is held outside of the Java
+     * heap.
+     */
+    private boolean isOffHeap;
+
+    /**
+     * Occupation status of all grid cells, 64 grid cells per long value.
+     */
+    private long[] occupied = new long[0];
+
+    /**
+     * Occupation status of all grid cells outside of the heap.
+     */
+    private LongBuffer occupiedBuffer;
+
+    /**
+     * Number of long values allocated for the occupation status.
+     */
+    private int noOfWords = 0;
+
+    /**
+     * Slot in the page storage of each page of grid cells, which is only
+     * valid if the corresponding page stamp equals the current epoch.
+     */
+    private int[] pageSlots = new int[0];
+
+    /**
+     * Epoch numbers at which the pages have been materialized.
+     */
+    private int[] pageStamps = new int[0];
+
+    /**
+     * Number of slots of the page storage in use in the current epoch.
+     */
+    private int noOfSlots = 0;
+
+    /**
+     * Number of grid cells the page storage can hold.
+     */
+    private int capacity = 0;
+
+    /**
+     * Distances of all grid cells in materialized pages, which are only valid
+     * if the corresponding stamp equals the current epoch.
+     */
+    private float[] distances = new float[0];
+
+    /**
+     * Distances of all grid cells in materialized pages outside of the heap.
+     */
+    private FloatBuffer distanceBuffer;
+
+    /**
+     * Epoch numbers at which the distances have been set.
+     */
+    private int[] stamps = new int[0];
+
+    /**
+     * Epoch numbers at which the distances have been set outside of the heap.
+     */
+    private IntBuffer stampBuffer;
+
+    /**
+     * Directions towards the predecessor of each grid cell in materialized
+     * pages on its shortest path. {@code NULL} until requested, as they are
+     * only needed for tracing back paths.
+     */
+    private byte[] predecessors;
+
+    /**
+     * Directions towards the predecessors outside of the heap. {@code NULL}
+     * until requested.
+     */
+    private ByteBuffer predecessorBuffer;
+
+    /**
+     * Current epoch number.
+     */
+    private int epoch = 0;
+
+    /**
+     * Scratch arrays of long values, e.g. for bitwise expansions on the grid.
+     */
+    private long[][] scratch = new long[0][];
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor of an arena, whose storage is held on the Java heap.
+     */
+    public GridArena() {
+        this(false);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param offHeap
+     *        - boolean value, {@code TRUE} to hold the storage in direct
+     *          buffers outside of the Java heap.
+     */
+    public GridArena(final boolean offHeap) {
+        this.isOffHeap = offHeap;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Prepares the storage for a new grid with all grid cells being
+     * unoccupied and having no distance set.
+     * @param noOfCells
+     *        - integer value representing the number of grid cells.
+     */
+    final void acquire(final int noOfCells) {
+        int noOfPages = (noOfCells + PAGE_SIZE - 1) >>> PAGE_BITS;
+        int words = (noOfCells + Long.SIZE - 1) / Long.SIZE;
+        // grids with the same number of pages might still need more long
+        // values for their occupation status.
+        if (this.noOfWords < words) {
+            if (this.isOffHeap) {
+                this.occupiedBuffer = GridArena.allocate(
+                                                   words * Long.SIZE / Byte.SIZE
+                                                        ).asLongBuffer();
+            } else {
+                this.occupied = new long[words];
+            }
+            this.noOfWords = words;
+        }
+        if (this.pageSlots.length < noOfPages) {
+            this.pageSlots = new int[noOfPages];
+            this.pageStamps = new int[noOfPages];
+            this.clearStamps();
+            this.epoch = 0;
+        }
+        this.clearWords(words);
+        this.nextEpoch();
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Allocates a direct buffer outside of the Java heap in the native byte
+     * order.
+     * @param noOfBytes
+     *        - integer value representing the size of the buffer.
+     * @return ByteBuffer object with all bytes set to 0.
+     */
+    private static ByteBuffer allocate(final int noOfBytes) {
+        return ByteBuffer.allocateDirect(noOfBytes).order(
+                                                      ByteOrder.nativeOrder());
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the first long values of the occupation status to 0.
+     * @param words
+     *        - integer value representing the number of long values.
+     */
+    final void clearWords(final int words) {
+        if (this.isOffHeap) {
+            for (int w = 0; w < words; w++) {
+                this.occupiedBuffer.put(w, 0L);
+            }
+        } else {
+            Arrays.fill(this.occupied, 0, words, 0L);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets all epoch numbers of the distances to 0.
+     */
+    private void clearStamps() {
+        if (this.isOffHeap) {
+            for (int n = 0; n < this.capacity; n++) {
+                this.stampBuffer.put(n, 0);
+            }
+        } else {
+            Arrays.fill(this.stamps, 0);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Invalidates all distances by increasing the epoch number. Only if the
+     * epoch number overflows, all stamps are overwritten.
+     * @return integer value representing the new epoch number.
+     */
+    final int nextEpoch() {
+        if (this.epoch == Integer.MAX_VALUE) {
+            this.clearStamps();
+            Arrays.fill(this.pageStamps, 0);
+            this.epoch = 0;
+        }
+        this.epoch++;
+        this.noOfSlots = 0;
+        return this.epoch;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Materializes a page of grid cells in the current epoch by assigning it
+     * the next free slot of the page storage, which grows if needed. Stamps
+     * left over in the slot from earlier epochs mark all distances as unset.
+     * @param page
+     *        - integer value representing the page number, i.e. the flat index
+     *          of a grid cell shifted by {@link #PAGE_BITS}.
+     */
+    final void materialize(final int page) {
+        if (this.pageStamps[page] == this.epoch) {
+            return;
+        }
+        int slot = this.noOfSlots++;
+        int size = (slot + 1) * PAGE_SIZE;
+        if (this.capacity < size) {
+            this.grow(Math.max(size, this.capacity * 2));
+        }
+        this.pageSlots[page] = slot;
+        this.pageStamps[page] = this.epoch;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Enlarges the page storage, keeping all distances, stamps and
+     * predecessors.
+     * @param larger
+     *        - integer value representing the new number of grid cells the
+     *          page storage can hold.
+     */
+    private void grow(final int larger) {
+        if (this.isOffHeap) {
+            FloatBuffer newDistances = GridArena.allocate(
+                                              larger * Float.SIZE / Byte.SIZE
+                                                         ).asFloatBuffer();
+            IntBuffer newStamps = GridArena.allocate(
+                                            larger * Integer.SIZE / Byte.SIZE
+                                                    ).asIntBuffer();
+            if (this.capacity > 0) {
+                this.distanceBuffer.clear();
+                this.stampBuffer.clear();
+                newDistances.put(this.distanceBuffer);
+                newStamps.put(this.stampBuffer);
+            }
+            this.distanceBuffer = newDistances;
+            this.stampBuffer = newStamps;
+            if (this.predecessorBuffer != null) {
+                ByteBuffer newPredecessors = GridArena.allocate(larger);
+                this.predecessorBuffer.clear();
+                newPredecessors.put(this.predecessorBuffer);
+                this.predecessorBuffer = newPredecessors;
+            }
+        } else {
+            this.distances = Arrays.copyOf(this.distances, larger);
+            this.stamps = Arrays.copyOf(this.stamps, larger);
+            if (this.predecessors != null) {
+                this.predecessors = Arrays.copyOf(this.predecessors, larger);
+            }
+        }
+        this.capacity = larger;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the storage is held outside of the Java heap.
+     * @return {@code TRUE} if the storage is held in direct buffers,
+     *         {@code FALSE} otherwise.
+     */
+    public final boolean isOffHeap() {
+        return this.isOffHeap;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the occupation status of all grid cells.
+     * @return Array of long values.
+     */
+    final long[] getOccupied() {
+        return this.occupied;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the occupation status of all grid cells outside of the heap.
+     * @return LongBuffer object or {@code NULL} if the storage is held on the
+     *         heap.
+     */
+    final LongBuffer getOccupiedBuffer() {
+        return this.occupiedBuffer;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of long values allocated for the occupation status.
+     * @return integer value representing the number of long values.
+     */
+    final int getNumberOfWords() {
+        return this.noOfWords;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the slots of all pages in the page storage.
+     * @return Array of integer values.
+     */
+    final int[] getPageSlots() {
+        return this.pageSlots;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the epoch numbers at which the pages have been materialized.
+     * @return Array of integer values.
+     */
+    final int[] getPageStamps() {
+        return this.pageStamps;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the distances of all grid cells in materialized pages. The array
+     * is replaced whenever the page storage grows.
+     * @return Array of float values.
+     */
+    final float[] getDistances() {
+        return this.distances;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the epoch numbers at which the distances have been set. The
+     * array is replaced whenever the page storage grows.
+     * @return Array of integer values.
+     */
+    final int[] getStamps() {
+        return this.stamps;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the distances of all grid cells in materialized pages outside
+     * of the heap. The buffer is replaced whenever the page storage grows.
+     * @return FloatBuffer object or {@code NULL} if the storage is held on the
+     *         heap.
+     */
+    final FloatBuffer getDistanceBuffer() {
+        return this.distanceBuffer;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the epoch numbers at which the distances have been set outside
+     * of the heap. The buffer is replaced whenever the page storage grows.
+     * @return IntBuffer object or {@code NULL} if the storage is held on the
+     *         heap.
+     */
+    final IntBuffer getStampBuffer() {
+        return this.stampBuffer;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the predecessor directions of all grid cells in materialized
+     * pages, which are allocated on first request. Entries are only
+     * meaningful for grid cells whose distance has been set in the current
+     * epoch. The array is replaced whenever the page storage grows.
+     * @return Array of byte values.
+     */
+    final byte[] getPredecessors() {
+        if (this.predecessors == null) {
+            this.predecessors = new byte[this.distances.length];
+        }
+        return this.predecessors;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the predecessor directions of all grid cells in materialized
+     * pages outside of the heap, which are allocated on first request. The
+     * buffer is replaced whenever the page storage grows.
+     * @return ByteBuffer object.
+     */
+    final ByteBuffer getPredecessorBuffer() {
+        if (this.predecessorBuffer == null) {
+            this.predecessorBuffer = GridArena.allocate(Math.max(1,
+                                                             this.capacity));
+        }
+        return this.predecessorBuffer;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns a scratch array of long values with at least a given number of
+     * values, all of which are set to 0. The array is held on the Java heap
+     * and reused by all further requests for the same slot, so that it must
+     * not be used anymore once a new grid has been acquired from this arena.
+     * @param slot
+     *        - integer value representing the number of the scratch array.
+     * @param length
+     *        - integer value representing the number of values needed.
+     * @return Array of long values, which might be longer than requested.
+     */
+    public final long[] getScratchWords(final int slot, final int length) {
+        if (this.scratch.length <= slot) {
+            this.scratch = Arrays.copyOf(this.scratch, slot + 1);
+        }
+        if (this.scratch[slot] == null || this.scratch[slot].length < length) {
+            this.scratch[slot] = new long[length];
+        } else {
+            Arrays.fill(this.scratch[slot], 0, length, 0L);
+        }
+        return this.scratch[slot];
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the current epoch number.
+     * @return integer value representing the epoch number.
+     */
+    final int getEpoch() {
+        return this.epoch;
+    }
+}
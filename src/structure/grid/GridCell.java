@@ -23,6 +23,10 @@ import structure.matter.Atom;
 
 /**
  * Class for representing single grid cells that constitute a Grid object.
+ * GridCell objects obtained from a Grid are views onto the flat arrays of
+ * that grid, i.e. changing their occupation status or distance changes the
+ * grid itself. GridCell objects created via the constructor or via
+ * {@link #copy()} are detached from any grid and hold their own state.
  * @author Abdullah Kahraman
  * @version 0.1
  * @since 0.1
@@ -30,19 +34,24 @@ import structure.matter.Atom;
 public class GridCell {
     //-------------------------------------------------------------------------
     /**
-     * Length of the grid cell edge.
-     * Default {@code size = 0.5}.
+     * Length of the grid cell edge, if this grid cell is detached from any
+     * grid. Otherwise the cell size of the grid applies.
+     * Default {@code size = Constants.DEFAULT_GRID_CELL_SIZE}.
      */
-    private static double size = Constants.DEFAULT_GRID_CELL_SIZE;
+    private double size = Constants.DEFAULT_GRID_CELL_SIZE;
 
     /**
-     * Diagonal of the grid cell.
-     * Default {@code diagonal = Math.sqrt(0.5)}
+     * Grid to which this grid cell belongs. {@code NULL} if this grid cell is
+     * detached from any grid.
      */
-    private static double diagonal = Math.sqrt(2 * Math.pow(size, 2));
-
+    private Grid grid = null;
+    /**
+     * Flat index of this grid cell within {@link #grid}.
+     */
+    private int index = -1;
     /**
-     * Cartesian coordinates of the grid cell center.
+     * Cartesian coordinates of the grid cell center. For grid backed cells
+     * only computed on first request.
      */
     private Point3f xyzCoordinates;
     /**
@@ -63,7 +72,7 @@ public class GridCell {
 
     //-------------------------------------------------------------------------
     /**
-     * Constructor.
+     * Constructor for grid cells that are detached from any grid.
      * @param xyz
      *        - Point3d object with XYZ coordinates of the grid cell.
      * @param edgeLength
@@ -71,15 +80,52 @@ public class GridCell {
      */
     public GridCell(final Point3f xyz, final double edgeLength) {
         this.setXYZ(xyz);
-        GridCell.setSize(edgeLength);
+        this.size = edgeLength;
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Constructor for grid cells that are backed by a grid.
+     * @param backingGrid
+     *        - Grid object holding the state of this grid cell.
+     * @param flatIndex
+     *        - integer value representing the flat index of this grid cell
+     *          within the grid.
+     */
+    GridCell(final Grid backingGrid, final int flatIndex) {
+        this.grid = backingGrid;
+        this.index = flatIndex;
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Returns the grid to which this grid cell belongs.
+     * @return Grid object or {@code NULL} if this grid cell is detached from
+     *         any grid.
+     */
+    public final Grid getGrid() {
+        return this.grid;
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Returns the flat index of this grid cell within its grid.
+     * @return integer value representing the flat index or {@code -1} if this
+     *         grid cell is detached from any grid.
+     */
+    public final int getIndex() {
+        return this.index;
     }
     //-------------------------------------------------------------------------
    /**
      * Sets new Cartesian coordinates for the center of this grid cell.
      * @param xyz
      *        - Point3d object holding the new Cartesian coordinates.
+     * @throws UnsupportedOperationException if this grid cell belongs to a
+     *         grid.
      */
     public final void setXYZ(final Point3f xyz) {
+        if (this.grid != null) {
+            throw new UnsupportedOperationException("Coordinates of grid "
+                                                  + "backed cells are fixed.");
+        }
         this.xyzCoordinates = xyz;
     }
     //-------------------------------------------------------------------------
@@ -88,6 +134,10 @@ public class GridCell {
      * @return Point3d object holding the Cartesian coordinates.
      */
     public final Point3f getXYZ() {
+        if (this.xyzCoordinates == null && this.grid != null) {
+            // coordinates of grid backed cells are fixed, so compute them once.
+            this.xyzCoordinates = this.grid.getXYZ(this.index);
+        }
         return this.xyzCoordinates;
     }
     //-------------------------------------------------------------------------
@@ -95,8 +145,14 @@ public class GridCell {
      * Sets new indices for the grid cell.
      * @param ijk
      *        - Point3i object holding the indices.
+     * @throws UnsupportedOperationException if this grid cell belongs to a
+     *         grid.
      */
     public final void setIndices(final Point3i ijk) {
+        if (this.grid != null) {
+            throw new UnsupportedOperationException("Indices of grid backed "
+                                                  + "cells are fixed.");
+        }
         this.ijkIndices = ijk;
     }
     //-------------------------------------------------------------------------
@@ -105,40 +161,42 @@ public class GridCell {
      * @return Point3i object holding the indices.
      */
     public final Point3i getIndices() {
+        if (this.grid != null) {
+            return new Point3i(this.grid.getI(this.index),
+                               this.grid.getJ(this.index),
+                               this.grid.getK(this.index));
+        }
         return this.ijkIndices;
     }
     //-------------------------------------------------------------------------
-    /**
-     * Sets the size, i.e. edge length of this grid cell and its diagonal.
-     * @param edgeLength
-     *        - float value representing the size of the grid cell.
-     */
-    private static void setSize(final double edgeLength) {
-        GridCell.size = edgeLength;
-        GridCell.diagonal = Math.sqrt(2 * Math.pow(GridCell.size, 2));
-    }
-    //-------------------------------------------------------------------------
     /**
      * Returns the size, i.e. edge length of this grid cell.
      * @return float value representing the size of the grid cell.
      */
-    public static final double getSize() {
-        return GridCell.size;
+    public final double getSize() {
+        if (this.grid != null) {
+            return this.grid.getCellSize();
+        }
+        return this.size;
     }
     //-------------------------------------------------------------------------
     /**
      * Returns the diagonal of this grid cell.
      * @return float value representing the diagonal of the grid cell.
      */
-    public static final double getDiagonalLength() {
-        return GridCell.diagonal;
+    public final double getDiagonalLength() {
+        return Math.sqrt(2 * Math.pow(this.getSize(), 2));
     }
     //-------------------------------------------------------------------------
     /**
      * Sets the occupation status of this grid cell to {@code TRUE}.
      */
     public final void setOccupation() {
-        this.isOccupied = true;
+        if (this.grid != null) {
+            this.grid.setOccupation(this.index);
+        } else {
+            this.isOccupied = true;
+        }
     }
     //-------------------------------------------------------------------------
 
@@ -146,7 +204,11 @@ public class GridCell {
      * Sets the occupation status of this grid cell to {@code FALSE}.
      */
     public final void unsetOccupation() {
-        this.isOccupied = false;
+        if (this.grid != null) {
+            this.grid.unsetOccupation(this.index);
+        } else {
+            this.isOccupied = false;
+        }
     }
     //-------------------------------------------------------------------------
 
@@ -156,6 +218,9 @@ public class GridCell {
      *         {@code FALSE} otherwise.
      */
     public final boolean isOccupied() {
+        if (this.grid != null) {
+            return this.grid.isOccupied(this.index);
+        }
         return this.isOccupied;
     }
     //-------------------------------------------------------------------------
@@ -167,7 +232,11 @@ public class GridCell {
      * @see #getDistance()
      */
     public final void setDistance(final float dist) {
-        this.distance = dist;
+        if (this.grid != null) {
+            this.grid.setDistance(this.index, dist);
+        } else {
+            this.distance = dist;
+        }
     }
     //-------------------------------------------------------------------------
 
@@ -178,6 +247,9 @@ public class GridCell {
      * @see #setDistance(float)
      */
     public final float getDistance() {
+        if (this.grid != null) {
+            return this.grid.getDistance(this.index);
+        }
         return this.distance;
     }
     //-------------------------------------------------------------------------
@@ -203,15 +275,16 @@ public class GridCell {
     //-------------------------------------------------------------------------
 
     /**
-     * Creates a copy of this GridCell object.
+     * Creates a detached copy of this GridCell object, i.e. a snapshot of its
+     * current state that is not affected by later changes to the grid.
      * @return A new copy of this GridCell object.
      */
     public final GridCell copy() {
-        GridCell copy = new GridCell(this.getXYZ().copy(), GridCell.getSize());
+        GridCell copy = new GridCell(this.getXYZ().copy(), this.getSize());
         if (this.getIndices() != null) {
             copy.setIndices(this.getIndices().copy());
         }
-        copy.setDistance(this.distance);
+        copy.setDistance(this.getDistance());
 
         if (this.isOccupied()) {
             copy.setOccupation();
@@ -229,20 +302,45 @@ public class GridCell {
      *         otherwise.
      */
     public final boolean equals(final GridCell cell) {
+        if (cell == null) {
+            return false;
+        }
+        if (this.grid != null && cell.grid != null) {
+            return this.grid == cell.grid && this.index == cell.index;
+        }
         return  this.getXYZ().equals(cell.getXYZ())
                 &&
                 this.getIndices().equals(cell.getIndices()) ? true : false;
     }
     //-------------------------------------------------------------------------
-    /*
-     * Returns the hash value of this GridCell, which corresponds to the
-     * following equation: hashValue = (int)(radius + X + 1000*Y + 10000000*Z).
+    /**
+     * Checks whether an object is the same as this GridCell object.
+     * @param object
+     *        - Object to be compared to this GridCell object.
+     * @return {@code TRUE} if object is a GridCell with the same XYZ
+     *         Cartesian coordinates and IJK indices, {@code FALSE} otherwise.
+     * @see #equals(GridCell)
+     */
+    public final boolean equals(final Object object) {
+        if (object instanceof GridCell) {
+            return this.equals((GridCell) object);
+        }
+        return false;
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Returns the hash value of this GridCell, which is based on its IJK
+     * indices.
      * @return integer variable representing the hash value of this GridCell
      *         object.
      */
-//    public final int hashCode() {
-//        return (int) this.size + this.toString().hashCode();
-//    }
+    public final int hashCode() {
+        Point3i ijk = this.getIndices();
+        if (ijk == null) {
+            return 0;
+        }
+        return (ijk.getI() * 31 + ijk.getJ()) * 31 + ijk.getK();
+    }
     //-------------------------------------------------------------------------
     /**
      * Returns the grid cell as an Atom Object.
@@ -251,25 +349,47 @@ public class GridCell {
      *         temperature factor column.
      */
     public final Atom toAtom() {
+        float dist;
+        try {
+            dist = this.getDistance();
+        } catch (Exception e) {
+            dist = 0.0f;
+        }
+        return GridCell.toAtom(this.getXYZ(), dist, this.isOccupied());
+    }
+    //-------------------------------------------------------------------------
+    /**
+     * Returns a grid cell as an Atom Object without the need of a GridCell
+     * object.
+     * @param xyz
+     *        - Point3f object holding the Cartesian coordinates of the grid
+     *          cell center.
+     * @param dist
+     *        - float value representing the distance of the grid cell.
+     * @param occupied
+     *        - boolean value indicating whether the grid cell is occupied.
+     * @return Atom object with chainID=Y or N for occupied or unoccupied grid
+     *         cells respectively and with distance information in the
+     *         temperature factor column.
+     */
+    static Atom toAtom(final Point3f xyz,
+                       final float dist,
+                       final boolean occupied) {
         Atom atom = new Atom();
         float maxTempFactorValue = Constants.MAX_OCCUPANCY_TEMPERATURE_VALUE;
 
         atom.setFlag("HETATM");
 
-        atom.setXYZ(new Point3f(this.getXYZ().getX(),
-                                    this.getXYZ().getY(),
-                                    this.getXYZ().getZ()));
-        try {
-            float tempValue = this.getDistance();
-            if (tempValue > maxTempFactorValue) {
-                tempValue = maxTempFactorValue;
-            }
-            atom.setTemperatureFactor(tempValue);
-        } catch (Exception e) {
-              atom.setTemperatureFactor(0.0f);
+        atom.setXYZ(new Point3f(xyz.getX(),
+                                xyz.getY(),
+                                xyz.getZ()));
+        float tempValue = dist;
+        if (tempValue > maxTempFactorValue) {
+            tempValue = maxTempFactorValue;
         }
+        atom.setTemperatureFactor(tempValue);
 
-        if (this.isOccupied()) {
+        if (occupied) {
             atom.setChainId('Y');
         } else {
             atom.setChainId('N');
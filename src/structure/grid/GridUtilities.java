@@ -15,6 +15,7 @@
 package structure.grid;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import structure.constants.Constants;
 import structure.math.Point3d;
@@ -188,45 +189,54 @@ public class GridUtilities {
         boolean verbose = Boolean.parseBoolean(CrossLinkParameter.getParameter(
                                                      Parameter.DO_VERBOSE_OUTPUT
                                                                              ));
+        return GridUtilities.isAccessible(atom, grid, verbose);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether any neighbouring cells are labeled as boundary.
+     * @param atom
+     *        - Atom object to be checked whether it is solvent accessible.
+     * @param grid
+     *        - Grid object that holds all grid cells including the {@code cell}
+     *          and all neighboring grid cells. Prior to the execution of this
+     *          method, the Grid object must have been searched for the boundary
+     *          cells with the BoundarySearch class.
+     * @param verbose
+     *        - boolean value, {@code TRUE} to output the number of boundary
+     *          grid cells of the atom on the STDERR channel.
+     * @return {@code TRUE} if cell is accessible, {@code FALSE} otherwise.
+     * @see structure.math.algorithms.BoundarySearch
+     */
+    public static boolean isAccessible(final Atom atom,
+                                       final AtomGrid grid,
+                                       final boolean verbose) {
 
-        ArrayList<GridCell> neighboursBorder = grid.getAllGridCells(atom, 1);
-        ArrayList<GridCell> neighbours = grid.getAllGridCells(atom, 0);
-        ArrayList<GridCell> border = new ArrayList<GridCell>();
-        for (GridCell cell1 : neighboursBorder) {
-            boolean found = false;
-            for (GridCell cell2 : neighbours) {
-                if (cell1 == cell2) {
-                    found = true;
+        int[] neighboursBorder = grid.getAllGridCellIndices(atom, 1);
+        int[] neighbours = grid.getAllGridCellIndices(atom, 0);
+        Arrays.sort(neighbours);
+        // count unoccupied grid cells in the shell around the atom.
+        int n = 0;
+        for (int index : neighboursBorder) {
+            if (Arrays.binarySearch(neighbours, index) < 0
+                &&
+                !grid.isOccupied(index)) {
+                if (!verbose) {
+                    return true;
                 }
-            }
-            if (!found) {
-                border.add(cell1);
+                n++;
             }
         }
-
         if (!verbose) {
-            for (GridCell borderCell : border) {
-                if (!borderCell.isOccupied()) {
-                    return true;
-                }
-            }
-            return false;
-        } else {
-            int n = 0;
-            for (GridCell borderCell : border) {
-                if (!borderCell.isOccupied()) {
-                    n++;
-                }
-            }
-            System.err.print("Following atom has " + n + " grid cells at the "
-                           + "protein/solvent boundary:"
-                           + Constants.LINE_SEPERATOR
-                           + atom);
-            if (n > 0) {
-                return true;
-            }
             return false;
         }
+        System.err.print("Following atom has " + n + " grid cells at the "
+                       + "protein/solvent boundary:"
+                       + Constants.LINE_SEPERATOR
+                       + atom);
+        if (n > 0) {
+            return true;
+        }
+        return false;
     }
     //--------------------------------------------------------------------------
     /**
@@ -248,4 +258,120 @@ public class GridUtilities {
         return null;
     }
     //--------------------------------------------------------------------------
+    /**
+     * Checks whether the straight line between the centres of two grid cells
+     * runs only through unoccupied grid cells. The grid cells that are
+     * crossed by the line are visited in order by a 3D digital differential
+     * analyser. Where the line passes exactly through an edge or a corner of
+     * grid cells, it steps diagonally, just as the shortest path searches do.
+     * @param grid
+     *        - Grid object holding both grid cells.
+     * @param from
+     *        - integer value representing the flat index of the first grid
+     *          cell, whose occupation status is not checked.
+     * @param to
+     *        - integer value representing the flat index of the second grid
+     *          cell.
+     * @return {@code TRUE} if all crossed grid cells are unoccupied,
+     *         {@code FALSE} otherwise. Lines that cross the lower grid border
+     *         are regarded as blocked, as cells on the lower grid border have
+     *         no neighbours, see {@link #getNeighbouringCells(GridCell, Grid,
+     *         int)}.
+     */
+    public static boolean isInLineOfSight(final Grid grid,
+                                          final int from,
+                                          final int to) {
+        int[] cell = new int[] {grid.getI(from), grid.getJ(from),
+                                grid.getK(from)};
+        int[] end = new int[] {grid.getI(to), grid.getJ(to), grid.getK(to)};
+        if (cell[0] == 0 || cell[1] == 0 || cell[2] == 0) {
+            return false;
+        }
+        int[] step = new int[3];
+        int[] length = new int[3];
+        int[] crossed = new int[3];
+        for (int a = 0; a < 3; a++) {
+            step[a] = end[a] > cell[a] ? 1 : -1;
+            length[a] = Math.abs(end[a] - cell[a]);
+        }
+        while (true) {
+            // the line leaves the current cell along axis a at the line
+            // parameter (2 * crossed[a] + 1) / (2 * length[a]), which is
+            // compared in integer arithmetic to detect exact ties.
+            int next = -1;
+            for (int a = 0; a < 3; a++) {
+                if (crossed[a] < length[a]
+                    &&
+                    (next == -1
+                     ||
+                     (2 * crossed[a] + 1) * length[next]
+                     < (2 * crossed[next] + 1) * length[a])) {
+                    next = a;
+                }
+            }
+            if (next == -1) {
+                return true;
+            }
+            int nextCrossing = 2 * crossed[next] + 1;
+            int nextLength = length[next];
+            for (int a = 0; a < 3; a++) {
+                if (crossed[a] < length[a]
+                    &&
+                    (2 * crossed[a] + 1) * nextLength
+                    == nextCrossing * length[a]) {
+                    cell[a] += step[a];
+                    crossed[a]++;
+                }
+            }
+            int index = grid.getIndex(cell[0], cell[1], cell[2]);
+            if (index == -1 || grid.isOccupied(index)) {
+                return false;
+            }
+            if (index != to && (cell[0] == 0 || cell[1] == 0 || cell[2] == 0)) {
+                return false;
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the length of a path of neighbouring grid cells after it has
+     * been shortened by straight lines. Starting from the first grid cell,
+     * the path is followed as far as the straight line from the current grid
+     * cell runs only through unoccupied grid cells, before the last grid cell
+     * in line of sight becomes the current grid cell. The shortened path is
+     * never longer than the original one, as neighbouring grid cells are
+     * always in line of sight.
+     * @param grid
+     *        - Grid object holding all grid cells of the path.
+     * @param indices
+     *        - Array of integer values holding the flat indices of the
+     *          neighbouring grid cells along the path.
+     * @return float value representing the length of the shortened path
+     *         between the centres of the first and the last grid cell.
+     * @see #isInLineOfSight(Grid, int, int)
+     */
+    public static float getShortenedLength(final Grid grid,
+                                           final int[] indices) {
+        double length = 0;
+        int current = 0;
+        while (current < indices.length - 1) {
+            int next = current + 1;
+            while (next + 1 < indices.length
+                   &&
+                   GridUtilities.isInLineOfSight(grid,
+                                                 indices[current],
+                                                 indices[next + 1])) {
+                next++;
+            }
+            int di = grid.getI(indices[next]) - grid.getI(indices[current]);
+            int dj = grid.getJ(indices[next]) - grid.getJ(indices[current]);
+            int dk = grid.getK(indices[next]) - grid.getK(indices[current]);
+            length += grid.getCellSize() * Math.sqrt(di * di
+                                                     + dj * dj
+                                                     + dk * dk);
+            current = next;
+        }
+        return (float) length;
+    }
+    //--------------------------------------------------------------------------
 }
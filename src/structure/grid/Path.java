@@ -16,11 +16,19 @@ package structure.grid;
 
 import java.util.ArrayList;
 
+import structure.math.Point3f;
 import structure.matter.Atom;
 
 
 /**
  * Class that stores a list of GridCells objects as a Path object.
+ * <p>
+ * Grid cells that have been traced back from the target cell to the source
+ * cell are not stored as GridCell objects, but as flat grid indices together
+ * with their distances and the geometry of the grid. They are converted into
+ * Cartesian coordinates only when the path is written out, so that the grid
+ * itself can be reused after the search.
+ * </p>
  * @author abdullah
  * @version 0.1
  * @since 0.1
@@ -31,6 +39,93 @@ public class Path extends ArrayList < GridCell > {
      * Default serialVersionUID.
      */
     private static final long serialVersionUID = 1L;
+
+    /**
+     * Flat grid indices of the traced back grid cells, ordered from the
+     * target towards the source cell.
+     */
+    private int[] cells = new int[0];
+
+    /**
+     * Distances of the traced back grid cells.
+     */
+    private float[] cellDistances = new float[0];
+
+    /**
+     * Minimum Cartesian coordinates of the grid of the traced back cells.
+     */
+    private Point3f min;
+
+    /**
+     * Length of the grid cell edges of the grid of the traced back cells.
+     */
+    private float cellSize;
+
+    /**
+     * Number of cells in the Y dimension of the grid of the traced back cells.
+     */
+    private int noOfyCells;
+
+    /**
+     * Number of cells in the Z dimension of the grid of the traced back cells.
+     */
+    private int noOfzCells;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the grid cells that have been traced back from the target cell to
+     * the source cell.
+     * @param indices
+     *        - Array of integer values holding the flat indices of the grid
+     *          cells ordered from the target towards the source cell.
+     * @param distances
+     *        - Array of float values holding the distances of the grid cells.
+     * @param grid
+     *        - Grid object to which the indices refer.
+     */
+    public final void setTracedCells(final int[] indices,
+                                     final float[] distances,
+                                     final Grid grid) {
+        this.cells = indices;
+        this.cellDistances = distances;
+        this.min = grid.getMin();
+        this.cellSize = grid.getCellSize();
+        this.noOfyCells = grid.getNumberOfCells().getJ();
+        this.noOfzCells = grid.getNumberOfCells().getK();
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the grid cells that have been traced back from the target cell
+     * to the source cell.
+     * @return Array of integer values holding the flat indices of the grid
+     *         cells ordered from the target towards the source cell. The
+     *         target cell itself is not included. Empty if no cells have been
+     *         traced back.
+     */
+    public final int[] getTracedCells() {
+        return this.cells;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the Cartesian coordinates of the center of a traced back grid
+     * cell.
+     * @param n
+     *        - integer value representing the position of the grid cell
+     *          among the traced back cells.
+     * @return Point3f object holding the Cartesian coordinates.
+     */
+    private Point3f getTracedXYZ(final int n) {
+        int index = this.cells[n];
+        int i = index / (this.noOfyCells * this.noOfzCells);
+        int j = (index / this.noOfzCells) % this.noOfyCells;
+        int k = index % this.noOfzCells;
+        return new Point3f(this.min.getX() + (i * this.cellSize)
+                                           + (this.cellSize / 2),
+                           this.min.getY() + (j * this.cellSize)
+                                           + (this.cellSize / 2),
+                           this.min.getZ() + (k * this.cellSize)
+                                           + (this.cellSize / 2));
+    }
     //--------------------------------------------------------------------------
     /**
      * Returns the GridCell objects of the Path in PDB format.
@@ -50,6 +145,18 @@ public class Path extends ArrayList < GridCell > {
              dummy.setName("C");
              buffer.append(dummy.toString());
         }
+        for (int n = 0; n < this.cells.length; n++) {
+             // traced back cells have been expanded by the search and are
+             // therefore unoccupied.
+             Atom dummy = GridCell.toAtom(this.getTracedXYZ(n),
+                                          this.cellDistances[n],
+                                          false);
+             dummy.setSerialNumber(i++);
+             dummy.setResidueName("PTH");
+             dummy.setResidueNumber(residueNumber);
+             dummy.setName("C");
+             buffer.append(dummy.toString());
+        }
         return buffer.toString();
     }
     //--------------------------------------------------------------------------
@@ -0,0 +1,192 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ */
+
+package structure.grid;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import structure.math.Point3i;
+import structure.matter.Atom;
+
+/**
+ * Class which labels all unoccupied grid cells of a grid build on an entire
+ * protein complex by their connectivity. Grid cells that are connected to the
+ * grid border belong to the bulk solvent, all other unoccupied grid cells are
+ * numbered by the enclosed cavity they belong to. Grid cells are connected to
+ * their 26 neighbours.
+ * <p>
+ * The labelling is computed once and is only read afterwards, so that it can
+ * be shared among threads.
+ * </p>
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class SolventLabelling {
+
+    /**
+     * Label of occupied grid cells.
+     */
+    public static final int OCCUPIED = -1;
+
+    /**
+     * Label of unoccupied grid cells that belong to the bulk solvent.
+     * Enclosed cavities are numbered from 1 onwards.
+     */
+    public static final int BULK_SOLVENT = 0;
+
+    /**
+     * Grid on which the labelling is computed.
+     */
+    private AtomGrid grid;
+
+    /**
+     * Labels of all grid cells.
+     */
+    private int[] labels;
+
+    /**
+     * Number of enclosed cavities.
+     */
+    private int noOfCavities = 0;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor, which labels all grid cells.
+     * @param grid
+     *        - AtomGrid object build on an entire protein complex. The grid
+     *          must not be changed afterwards.
+     */
+    public SolventLabelling(final AtomGrid grid) {
+        this.grid = grid;
+        this.labels = new int[grid.size()];
+        // grid cells that have not been labelled yet.
+        final int unlabelled = Integer.MIN_VALUE;
+        Arrays.fill(this.labels, unlabelled);
+        for (int index = 0; index < this.labels.length; index++) {
+            if (grid.isOccupied(index)) {
+                this.labels[index] = OCCUPIED;
+            }
+        }
+
+        int[] queue = new int[64];
+        Point3i noOfCells = grid.getNumberOfCells();
+        for (int index = 0; index < this.labels.length; index++) {
+            if (this.labels[index] != unlabelled) {
+                continue;
+            }
+            // collect all grid cells connected to this one.
+            int size = 0;
+            int head = 0;
+            boolean isBulk = false;
+            queue[size++] = index;
+            this.labels[index] = this.noOfCavities + 1;
+            while (head < size) {
+                int cell = queue[head++];
+                int i = grid.getI(cell);
+                int j = grid.getJ(cell);
+                int k = grid.getK(cell);
+                if (i == 0 || j == 0 || k == 0
+                    ||
+                    i == noOfCells.getI() - 1
+                    ||
+                    j == noOfCells.getJ() - 1
+                    ||
+                    k == noOfCells.getK() - 1) {
+                    isBulk = true;
+                }
+                for (int m = -1; m <= 1; m++) {
+                    for (int n = -1; n <= 1; n++) {
+                        for (int o = -1; o <= 1; o++) {
+                            int neighbour = grid.getIndex(i + m, j + n, k + o);
+                            if (neighbour == -1
+                                ||
+                                this.labels[neighbour] != unlabelled) {
+                                continue;
+                            }
+                            this.labels[neighbour] = this.noOfCavities + 1;
+                            if (size == queue.length) {
+                                queue = Arrays.copyOf(queue, size * 2);
+                            }
+                            queue[size++] = neighbour;
+                        }
+                    }
+                }
+            }
+            if (isBulk) {
+                for (int c = 0; c < size; c++) {
+                    this.labels[queue[c]] = BULK_SOLVENT;
+                }
+            } else {
+                this.noOfCavities++;
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the label of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the label, which is either
+     *         {@link #OCCUPIED}, {@link #BULK_SOLVENT} or the number of an
+     *         enclosed cavity.
+     */
+    public final int getLabel(final int index) {
+        return this.labels[index];
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of enclosed cavities.
+     * @return integer value representing the number of cavities.
+     */
+    public final int getNumberOfCavities() {
+        return this.noOfCavities;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the labels of all unoccupied grid cells in the shell around an
+     * atom, i.e. the bulk solvent and the enclosed cavities the atom is in
+     * contact with. The shell is the same as in
+     * {@link GridUtilities#isAccessible(Atom, AtomGrid, boolean)}.
+     * @param atom
+     *        - Atom object.
+     * @return BitSet object holding the labels, which is empty if the atom is
+     *         solvent inaccessible.
+     */
+    public final BitSet getLabels(final Atom atom) {
+        int[] neighboursBorder = this.grid.getAllGridCellIndices(atom, 1);
+        int[] neighbours = this.grid.getAllGridCellIndices(atom, 0);
+        Arrays.sort(neighbours);
+        BitSet contacts = new BitSet();
+        for (int index : neighboursBorder) {
+            if (this.labels[index] != OCCUPIED
+                &&
+                Arrays.binarySearch(neighbours, index) < 0) {
+                contacts.set(this.labels[index]);
+            }
+        }
+        return contacts;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether any grid cell in the shell around an atom is unoccupied.
+     * @param atom
+     *        - Atom object to be checked whether it is solvent accessible.
+     * @return {@code TRUE} if the atom is accessible, {@code FALSE} otherwise.
+     */
+    public final boolean isAccessible(final Atom atom) {
+        return !this.getLabels(atom).isEmpty();
+    }
+}
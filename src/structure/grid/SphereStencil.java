@@ -0,0 +1,334 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ */
+
+package structure.grid;
+
+/**
+ * Class holding the precomputed grid cell offsets of a sphere with a certain
+ * radius on a grid with a certain grid cell size.
+ * <p>
+ * The position of a sphere centre within its grid cell is divided into
+ * {@link #NUMBER_OF_BUCKETS} intervals along each axis. For each of these
+ * sub-cell buckets, the stencil lists all grid cell offsets that might lie
+ * within the sphere, in the same order as they are enumerated by
+ * {@link GridUtilities#getNeighbouringCells(GridCell, Grid, int)}. Offsets
+ * that lie within the sphere for any centre position within the bucket need
+ * no further check, whereas offsets close to the sphere surface are flagged
+ * for an exact distance check.
+ * </p>
+ * Stencils are immutable and cached, so that they can be shared among
+ * threads.
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class SphereStencil {
+
+    /**
+     * Number of sub-cell buckets along each axis.
+     */
+    public static final int NUMBER_OF_BUCKETS = 4;
+
+    /**
+     * Tolerance in Angstroem for rounding errors in the Cartesian coordinates
+     * of atoms and grid cells.
+     */
+    private static final double TOLERANCE = 0.01;
+
+    /**
+     * All stencils that have been computed so far.
+     */
+    private static volatile SphereStencil[] cache = new SphereStencil[0];
+
+    /**
+     * Radius of the sphere.
+     */
+    private final float radius;
+
+    /**
+     * Edge length of the grid cells.
+     */
+    private final double cellSize;
+
+    /**
+     * Number of additional grid cell shells around the sphere.
+     */
+    private final int expand;
+
+    /**
+     * Number of grid cells from the central grid cell to the border of the
+     * cube enclosing the sphere.
+     */
+    private final int extent;
+
+    /**
+     * Grid cell offsets for each bucket, stored as consecutive i,j,k triples.
+     */
+    private final int[][] offsets;
+
+    /**
+     * Flags for each bucket and offset whether the offset needs an exact
+     * distance check.
+     */
+    private final boolean[][] needsCheck;
+
+    /**
+     * Largest number of offsets in any bucket.
+     */
+    private final int maximumSize;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param radius
+     *        - float value representing the radius of the sphere.
+     * @param cellSize
+     *        - double value representing the edge length of the grid cells.
+     * @param expand
+     *        - integer value representing the number of additional grid cell
+     *          shells around the sphere.
+     */
+    private SphereStencil(final float radius,
+                          final double cellSize,
+                          final int expand) {
+        this.radius = radius;
+        this.cellSize = cellSize;
+        this.expand = expand;
+        this.extent = GridUtilities.getNumberOfGridCellsFittingIntoHemisphere(
+                                                                      radius,
+                                                                      cellSize)
+                      + expand;
+
+        int noOfBuckets = NUMBER_OF_BUCKETS * NUMBER_OF_BUCKETS
+                                            * NUMBER_OF_BUCKETS;
+        this.offsets = new int[noOfBuckets][];
+        this.needsCheck = new boolean[noOfBuckets][];
+
+        double threshold = radius + (cellSize * expand);
+        double bucketSize = cellSize / NUMBER_OF_BUCKETS;
+        int cubeSize = (2 * this.extent + 1) * (2 * this.extent + 1)
+                                             * (2 * this.extent + 1);
+        int[] triples = new int[3 * cubeSize];
+        boolean[] checks = new boolean[cubeSize];
+        int max = 0;
+        for (int b = 0; b < noOfBuckets; b++) {
+            int bi = b / (NUMBER_OF_BUCKETS * NUMBER_OF_BUCKETS);
+            int bj = (b / NUMBER_OF_BUCKETS) % NUMBER_OF_BUCKETS;
+            int bk = b % NUMBER_OF_BUCKETS;
+            int n = 0;
+            for (int m = -this.extent; m <= this.extent; m++) {
+                double[] di = SphereStencil.getDistanceRange(m, bi, cellSize,
+                                                             bucketSize);
+                for (int o = -this.extent; o <= this.extent; o++) {
+                    double[] dj = SphereStencil.getDistanceRange(o, bj,
+                                                                 cellSize,
+                                                                 bucketSize);
+                    for (int p = -this.extent; p <= this.extent; p++) {
+                        if (m == 0 && o == 0 && p == 0) {
+                            continue;
+                        }
+                        double[] dk = SphereStencil.getDistanceRange(
+                                                                   p, bk,
+                                                                   cellSize,
+                                                                   bucketSize);
+                        double minDist = Math.sqrt(di[0] * di[0]
+                                                   + dj[0] * dj[0]
+                                                   + dk[0] * dk[0]);
+                        double maxDist = Math.sqrt(di[1] * di[1]
+                                                   + dj[1] * dj[1]
+                                                   + dk[1] * dk[1]);
+                        if (minDist - threshold > TOLERANCE) {
+                            continue;
+                        }
+                        triples[3 * n] = m;
+                        triples[3 * n + 1] = o;
+                        triples[3 * n + 2] = p;
+                        checks[n] = threshold - maxDist <= TOLERANCE;
+                        n++;
+                    }
+                }
+            }
+            this.offsets[b] = new int[3 * n];
+            System.arraycopy(triples, 0, this.offsets[b], 0, 3 * n);
+            this.needsCheck[b] = new boolean[n];
+            System.arraycopy(checks, 0, this.needsCheck[b], 0, n);
+            max = Math.max(max, n);
+        }
+        this.maximumSize = max;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the range of distances along one axis between a sphere centre
+     * lying within a sub-cell bucket of the central grid cell and the centre
+     * of a grid cell at some offset.
+     * @param offset
+     *        - integer value representing the grid cell offset.
+     * @param bucket
+     *        - integer value representing the sub-cell bucket.
+     * @param cellSize
+     *        - double value representing the edge length of the grid cells.
+     * @param bucketSize
+     *        - double value representing the edge length of the buckets.
+     * @return Array of two double values holding the minimum and maximum
+     *         distance.
+     */
+    private static double[] getDistanceRange(final int offset,
+                                             final int bucket,
+                                             final double cellSize,
+                                             final double bucketSize) {
+        double centre = (offset + 0.5) * cellSize;
+        double low = bucket * bucketSize;
+        double high = (bucket + 1) * bucketSize;
+        double min = 0;
+        if (centre < low) {
+            min = low - centre;
+        } else if (centre > high) {
+            min = centre - high;
+        }
+        double max = Math.max(Math.abs(centre - low), Math.abs(centre - high));
+        return new double[] {min, max};
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the stencil of a sphere, which is computed on first request.
+     * @param radius
+     *        - float value representing the radius of the sphere.
+     * @param cellSize
+     *        - double value representing the edge length of the grid cells.
+     * @param expand
+     *        - integer value representing the number of additional grid cell
+     *          shells around the sphere.
+     * @return SphereStencil object.
+     */
+    public static SphereStencil get(final float radius,
+                                    final double cellSize,
+                                    final int expand) {
+        SphereStencil[] stencils = SphereStencil.cache;
+        for (SphereStencil stencil : stencils) {
+            if (stencil.radius == radius
+                &&
+                stencil.cellSize == cellSize
+                &&
+                stencil.expand == expand) {
+                return stencil;
+            }
+        }
+        synchronized (SphereStencil.class) {
+            for (SphereStencil stencil : SphereStencil.cache) {
+                if (stencil.radius == radius
+                    &&
+                    stencil.cellSize == cellSize
+                    &&
+                    stencil.expand == expand) {
+                    return stencil;
+                }
+            }
+            SphereStencil stencil = new SphereStencil(radius,
+                                                      cellSize,
+                                                      expand);
+            SphereStencil[] larger = new SphereStencil[
+                                                  SphereStencil.cache.length + 1
+                                                      ];
+            System.arraycopy(SphereStencil.cache, 0,
+                             larger, 0, SphereStencil.cache.length);
+            larger[larger.length - 1] = stencil;
+            SphereStencil.cache = larger;
+            return stencil;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of grid cells from the central grid cell to the
+     * border of the cube enclosing the sphere.
+     * @return integer value representing the number of grid cells.
+     */
+    public final int getExtent() {
+        return this.extent;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of additional grid cell shells around the sphere.
+     * @return integer value representing the number of shells.
+     */
+    public final int getExpand() {
+        return this.expand;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the largest number of grid cell offsets in any bucket, which
+     * does not include the central grid cell.
+     * @return integer value representing the number of offsets.
+     */
+    public final int getMaximumSize() {
+        return this.maximumSize;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the bucket number for a sphere centre.
+     * @param fi
+     *        - double value between 0 and 1 representing the relative position
+     *          of the sphere centre within its grid cell along the X axis.
+     * @param fj
+     *        - double value representing the same along the Y axis.
+     * @param fk
+     *        - double value representing the same along the Z axis.
+     * @return integer value representing the bucket number.
+     */
+    public static int getBucket(final double fi,
+                                final double fj,
+                                final double fk) {
+        return (SphereStencil.getBucket(fi) * NUMBER_OF_BUCKETS
+                + SphereStencil.getBucket(fj)) * NUMBER_OF_BUCKETS
+                + SphereStencil.getBucket(fk);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the bucket number along a single axis.
+     * @param f
+     *        - double value between 0 and 1 representing the relative position
+     *          of the sphere centre within its grid cell.
+     * @return integer value representing the bucket number.
+     */
+    private static int getBucket(final double f) {
+        int bucket = (int) (f * NUMBER_OF_BUCKETS);
+        if (bucket < 0) {
+            return 0;
+        }
+        if (bucket >= NUMBER_OF_BUCKETS) {
+            return NUMBER_OF_BUCKETS - 1;
+        }
+        return bucket;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the grid cell offsets of a bucket.
+     * @param bucket
+     *        - integer value representing the bucket number.
+     * @return Array of integer values holding consecutive i,j,k triples.
+     */
+    public final int[] getOffsets(final int bucket) {
+        return this.offsets[bucket];
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns for each grid cell offset of a bucket whether it needs an exact
+     * distance check.
+     * @param bucket
+     *        - integer value representing the bucket number.
+     * @return Array of boolean values.
+     */
+    public final boolean[] getChecks(final int bucket) {
+        return this.needsCheck[bucket];
+    }
+}
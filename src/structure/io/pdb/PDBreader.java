@@ -63,6 +63,13 @@ public class PDBreader {
      * @see #readAllAtoms()
      */
     private ArrayList < AtomList > allAtoms = new ArrayList < AtomList >();
+    /**
+     * Compact integer ids of all atoms read in so far, keyed by their residue
+     * name, residue number, chain ID and atom name.
+     * @see #parseAtom(String)
+     */
+    private Hashtable < String, Integer > atomIds =
+                                            new Hashtable < String, Integer >();
     //--------------------------------------------------------------------------
     /**
      * Constructor; Reads in all ATOM and HETATM entries from a PDB file.
@@ -248,6 +255,15 @@ public class PDBreader {
                     break;
                 }
             }
+
+            // assign the same id to alternative locations of an atom.
+            String atomId = AminoAcid.getAminoAcidId(atom) + atom.getName();
+            Integer id = this.atomIds.get(atomId);
+            if (id == null) {
+                id = this.atomIds.size();
+                this.atomIds.put(atomId, id);
+            }
+            atom.setId(id);
         } catch (Exception e) {
             throw new FileFormatException("ERROR: " + line + "; does not seem "
                                         + "to have PDB format: "
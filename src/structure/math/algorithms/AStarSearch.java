@@ -0,0 +1,321 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ *
+ */
+
+package structure.math.algorithms;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import structure.grid.Grid;
+import structure.grid.GridCell;
+
+/**
+ * Set the distances between a source cell and a few target cells within a
+ * grid by the A* algorithm on the 26-neighbour graph of grid cells.
+ * <p>
+ * Grid cells are expanded in the order of their distance to the source cell
+ * plus a lower bound of their distance to the nearest target cell that has
+ * not been settled yet. The lower bound is the length of the shortest path on
+ * an empty grid, which never overestimates the distance and satisfies the
+ * triangle inequality, so that every cell is final as soon as it is taken
+ * from the queue. Distances of the target cells are therefore the same as
+ * those of {@link DijkstraSearch}, but far fewer cells are expanded if the
+ * targets are close to the source. The search always stops as soon as all
+ * target cells have been settled, hence the distances of all other cells in
+ * the grid remain incomplete.
+ * </p>
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class AStarSearch extends ShortestPathSearch {
+
+    /**
+     * Factor by which the lower bound is scaled down, so that float rounding
+     * in the summation of step costs can not make the lower bound exceed the
+     * actual distance.
+     */
+    private static final float BOUND_SCALE = 0.9999f;
+
+    /**
+     * Initial capacity of the priority queue.
+     */
+    private static final int INITIAL_QUEUE_SIZE = 256;
+
+    /**
+     * Grid cell indices held in the binary heap of the priority queue.
+     */
+    private int[] queue = new int[INITIAL_QUEUE_SIZE];
+
+    /**
+     * Priorities of the grid cells held in the priority queue.
+     */
+    private float[] priorities = new float[INITIAL_QUEUE_SIZE];
+
+    /**
+     * Number of grid cells held in the priority queue.
+     */
+    private int queueSize = 0;
+
+    /**
+     * Indices on the X, Y and Z dimension of all target cells that have not
+     * been settled yet, stored as consecutive i,j,k triples.
+     */
+    private int[] targetIndices = new int[0];
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param grid
+     *        - Grid object in which the entire search is done.
+     * @param source
+     *        - Source grid cell, which represents the starting point for the
+     *          distance calculation.
+     * @param targets
+     *        - List of target grid cells, which represent the end point in the
+     *          distance calculation
+     * @param maxDist
+     *        - float value representing the maximum distance to search for in
+     *          the grid
+     */
+    public AStarSearch(final Grid grid,
+                       final GridCell source,
+                       final ArrayList < GridCell > targets,
+                       final float maxDist) {
+        super(grid, source, targets, maxDist);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns {@code TRUE}, as the A* search is always directed towards the
+     * target cells.
+     * @return {@code TRUE}.
+     */
+    protected final boolean isGoalDirected() {
+        return true;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Performs the A* search on the grid starting from the source cell.
+     * Cells with distances larger than the maximum distance get a final
+     * distance assigned, but are not expanded any further.
+     */
+    protected final void setDistances() {
+        Grid grid = this.getGrid();
+        float maxDist = this.getMaxDist();
+
+        NeighbourStencil stencil = new NeighbourStencil(grid);
+        int[] offsets = stencil.getOffsets();
+        float[] stepCosts = stencil.getStepCosts();
+        int[] backDirections = stencil.getBackDirections();
+
+        if (this.isFinished()) {
+            return;
+        }
+        boolean backtracking = this.isBacktrackingSet();
+        BitSet unsettledTargets = this.getUnsettledTargets();
+        this.setTargetIndices();
+        BitSet settled = new BitSet(grid.size());
+        for (int sourceIndex : this.getSourceIndices()) {
+            this.push(sourceIndex, this.getLowerBound(sourceIndex));
+        }
+
+        while (this.queueSize > 0) {
+            int index = this.pop();
+            if (settled.get(index)) {
+                // stale queue entry.
+                continue;
+            }
+            settled.set(index);
+            float dist = grid.getDistance(index);
+            if (unsettledTargets.get(index)) {
+                this.settle(index);
+                // the nearest unsettled target might have changed.
+                this.setTargetIndices();
+                this.updatePriorities();
+            }
+            if (dist > maxDist) {
+                this.setSucceeded();
+            }
+            if (this.isFinished()) {
+                return;
+            }
+            if (dist > maxDist) {
+                continue;
+            }
+            int i = grid.getI(index);
+            int j = grid.getJ(index);
+            int k = grid.getK(index);
+            // cells on the lower grid border are not expanded, exactly as
+            // in GridUtilities.getNeighbouringCells().
+            if (i == 0 || j == 0 || k == 0) {
+                continue;
+            }
+            // neighbours of cells in the grid interior need no bounds check.
+            boolean isInterior = stencil.isInterior(i, j, k);
+            for (int n = 0; n < offsets.length; n++) {
+                if (!isInterior && !stencil.isInGrid(i, j, k, n)) {
+                    continue;
+                }
+                int neighbour = index + offsets[n];
+                if (settled.get(neighbour)
+                    ||
+                    grid.isOccupied(neighbour)
+                    ||
+                    !this.isInRegion(neighbour)) {
+                    continue;
+                }
+                float newDist = dist + stepCosts[n];
+                if (newDist < grid.getDistance(neighbour)) {
+                    grid.setDistance(neighbour, newDist);
+                    if (backtracking) {
+                        this.setPredecessor(neighbour, backDirections[n]);
+                    }
+                    this.push(neighbour,
+                              newDist + this.getLowerBound(neighbour));
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Collects the indices of all target cells that have not been settled
+     * yet.
+     */
+    private void setTargetIndices() {
+        Grid grid = this.getGrid();
+        BitSet targets = this.getUnsettledTargets();
+        this.targetIndices = new int[3 * targets.cardinality()];
+        int n = 0;
+        for (int index = targets.nextSetBit(0);
+             index >= 0;
+             index = targets.nextSetBit(index + 1)) {
+             this.targetIndices[n++] = grid.getI(index);
+             this.targetIndices[n++] = grid.getJ(index);
+             this.targetIndices[n++] = grid.getK(index);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns a lower bound of the distance between a grid cell and the
+     * nearest target cell that has not been settled yet.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return float value representing the lower bound or 0 if all target
+     *         cells have been settled.
+     */
+    private float getLowerBound(final int index) {
+        if (this.targetIndices.length == 0) {
+            return 0;
+        }
+        Grid grid = this.getGrid();
+        int i = grid.getI(index);
+        int j = grid.getJ(index);
+        int k = grid.getK(index);
+        float min = Float.MAX_VALUE;
+        for (int n = 0; n < this.targetIndices.length; n += 3) {
+            min = Math.min(min, ShortestPathSearch.getChamferDistance(
+                                                  this.targetIndices[n] - i,
+                                                  this.targetIndices[n + 1] - j,
+                                                  this.targetIndices[n + 2] - k,
+                                                  grid.getCellSize()));
+        }
+        return min * BOUND_SCALE;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Recalculates the priorities of all grid cells in the priority queue
+     * and restores the heap order.
+     */
+    private void updatePriorities() {
+        Grid grid = this.getGrid();
+        for (int n = 0; n < this.queueSize; n++) {
+            this.priorities[n] = grid.getDistance(this.queue[n])
+                                 + this.getLowerBound(this.queue[n]);
+        }
+        for (int n = this.queueSize / 2 - 1; n >= 0; n--) {
+            this.siftDown(n);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Adds a grid cell index to the priority queue.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @param priority
+     *        - float value representing the priority of the grid cell.
+     */
+    private void push(final int index, final float priority) {
+        if (this.queueSize == this.queue.length) {
+            int[] largerQueue = new int[this.queue.length * 2];
+            System.arraycopy(this.queue, 0, largerQueue, 0, this.queueSize);
+            this.queue = largerQueue;
+            float[] largerPriorities = new float[this.priorities.length * 2];
+            System.arraycopy(this.priorities, 0,
+                             largerPriorities, 0, this.queueSize);
+            this.priorities = largerPriorities;
+        }
+        int n = this.queueSize++;
+        while (n > 0 && this.priorities[(n - 1) / 2] > priority) {
+            this.queue[n] = this.queue[(n - 1) / 2];
+            this.priorities[n] = this.priorities[(n - 1) / 2];
+            n = (n - 1) / 2;
+        }
+        this.queue[n] = index;
+        this.priorities[n] = priority;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Removes the grid cell index with the lowest priority from the priority
+     * queue.
+     * @return integer value representing the flat index of the grid cell.
+     */
+    private int pop() {
+        int index = this.queue[0];
+        this.queueSize--;
+        this.queue[0] = this.queue[this.queueSize];
+        this.priorities[0] = this.priorities[this.queueSize];
+        this.siftDown(0);
+        return index;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Moves an element of the binary heap down until the heap order is
+     * restored.
+     * @param position
+     *        - integer value representing the position of the element within
+     *          the heap.
+     */
+    private void siftDown(final int position) {
+        int index = this.queue[position];
+        float priority = this.priorities[position];
+        int n = position;
+        while (2 * n + 1 < this.queueSize) {
+            int child = 2 * n + 1;
+            if (child + 1 < this.queueSize
+                &&
+                this.priorities[child + 1] < this.priorities[child]) {
+                child++;
+            }
+            if (this.priorities[child] >= priority) {
+                break;
+            }
+            this.queue[n] = this.queue[child];
+            this.priorities[n] = this.priorities[child];
+            n = child;
+        }
+        this.queue[n] = index;
+        this.priorities[n] = priority;
+    }
+}
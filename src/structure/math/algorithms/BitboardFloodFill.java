@@ -0,0 +1,380 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ */
+
+package structure.math.algorithms;
+
+import structure.grid.Grid;
+import structure.grid.GridArena;
+import structure.math.Point3i;
+
+/**
+ * Class which determines all grid cells that are connected via unoccupied
+ * grid cells to a source cell, without calculating any distances. All grid
+ * cells along the Z dimension at some X and Y index form a row, which is
+ * stored as bits in consecutive long values, so that a wavefront is expanded
+ * on 64 grid cells at once with shifts, ORs and ANDs.
+ * <p>
+ * The expansion follows the same neighbourhood rules as the shortest path
+ * searches, i.e. each grid cell is connected to its 26 neighbours, except
+ * for cells on the lower grid border, which have no neighbours. It stops at
+ * cells that are farther away from the source cell than the maximum distance
+ * on an empty grid. Therefore any cell, to which a search can assign a
+ * distance, is also reached by the expansion, and the source cell can escape
+ * beyond the maximum distance exactly if the depth-first probe of the
+ * searches succeeds.
+ * </p>
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class BitboardFloodFill {
+
+    /**
+     * Grid object on which the expansion is done.
+     */
+    private Grid grid;
+
+    /**
+     * Number of grid cells in the X dimension.
+     */
+    private int noOfxCells;
+
+    /**
+     * Number of grid cells in the Y dimension.
+     */
+    private int noOfyCells;
+
+    /**
+     * Number of grid cells in the Z dimension.
+     */
+    private int noOfzCells;
+
+    /**
+     * Number of long values per row.
+     */
+    private int noOfWords;
+
+    /**
+     * Number of long values of all rows.
+     */
+    private int noOfRowWords;
+
+    /**
+     * Unoccupied grid cells within the maximum distance to the source cell
+     * on an empty grid, through which the wavefront expands.
+     */
+    private long[] solvent;
+
+    /**
+     * Unoccupied grid cells beyond the maximum distance to the source cell
+     * on an empty grid, at which the wavefront stops.
+     */
+    private long[] beyond;
+
+    /**
+     * Grid cells that have been reached by the wavefront.
+     */
+    private long[] reached;
+
+    /**
+     * Boolean indicating whether the wavefront has reached any cell beyond
+     * the maximum distance.
+     */
+    private boolean hasEscaped = false;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor, which expands the wavefront from a source cell until no
+     * further grid cells can be reached. All arrays are taken from the grid
+     * arena of the grid, so that the expansion becomes invalid once a new
+     * grid has been acquired from the same arena.
+     * @param grid
+     *        - Grid object on which the expansion is done.
+     * @param sourceIndex
+     *        - integer value representing the flat index of the source cell.
+     * @param maxDist
+     *        - float value representing the maximum distance.
+     * @param targetIndices
+     *        - Array of integer values holding the flat indices of target
+     *          cells. The expansion stops early as soon as all of them have
+     *          been reached and the wavefront has escaped beyond the maximum
+     *          distance.
+     */
+    public BitboardFloodFill(final Grid grid,
+                             final int sourceIndex,
+                             final float maxDist,
+                             final int[] targetIndices) {
+        this.grid = grid;
+        Point3i noOfCells = grid.getNumberOfCells();
+        this.noOfxCells = noOfCells.getI();
+        this.noOfyCells = noOfCells.getJ();
+        this.noOfzCells = noOfCells.getK();
+        this.noOfWords = (this.noOfzCells + Long.SIZE - 1) / Long.SIZE;
+        this.noOfRowWords = this.noOfxCells * this.noOfyCells * this.noOfWords;
+        GridArena arena = grid.getArena();
+        this.solvent = arena.getScratchWords(0, this.noOfRowWords);
+        this.beyond = arena.getScratchWords(1, this.noOfRowWords);
+        this.reached = arena.getScratchWords(2, this.noOfRowWords);
+
+        this.setMasks(sourceIndex, maxDist, arena.getScratchWords(3,
+                                                           this.noOfWords));
+        this.expand(sourceIndex,
+                    targetIndices,
+                    arena.getScratchWords(4, this.noOfRowWords),
+                    arena.getScratchWords(5, this.noOfRowWords),
+                    arena.getScratchWords(6, this.noOfWords));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the unoccupied grid cells within and beyond the maximum distance.
+     * Along each row, the distance on an empty grid grows with the distance
+     * to the source cell on the Z dimension, so that all cells within the
+     * maximum distance form a single interval.
+     * @param sourceIndex
+     *        - integer value representing the flat index of the source cell.
+     * @param maxDist
+     *        - float value representing the maximum distance.
+     * @param within
+     *        - Array of long values to hold the grid cells of a row within
+     *          the maximum distance.
+     */
+    private void setMasks(final int sourceIndex,
+                          final float maxDist,
+                          final long[] within) {
+        float cellSize = this.grid.getCellSize();
+        // small margin to be on the safe side of float rounding, as in the
+        // depth-first probe of the searches.
+        float limit = maxDist + cellSize / 100;
+        int si = this.grid.getI(sourceIndex);
+        int sj = this.grid.getJ(sourceIndex);
+        int sk = this.grid.getK(sourceIndex);
+        for (int i = 0; i < this.noOfxCells; i++) {
+            for (int j = 0; j < this.noOfyCells; j++) {
+                int offset = this.getRowOffset(i, j);
+                this.grid.getOccupiedRow(i, j, this.beyond, offset);
+                // largest distance on the Z dimension within the limit.
+                int low = -1;
+                int high = this.noOfzCells;
+                while (high - low > 1) {
+                    int middle = (low + high) >>> 1;
+                    if (ShortestPathSearch.getChamferDistance(i - si,
+                                                              j - sj,
+                                                              middle,
+                                                              cellSize)
+                                                                     <= limit) {
+                        low = middle;
+                    } else {
+                        high = middle;
+                    }
+                }
+                BitboardFloodFill.setInterval(within,
+                                              this.noOfWords,
+                                              Math.max(0, sk - low),
+                                              Math.min(this.noOfzCells - 1,
+                                                       sk + low));
+                for (int w = 0; w < this.noOfWords; w++) {
+                    int remaining = this.noOfzCells - w * Long.SIZE;
+                    long valid = remaining < Long.SIZE ? (1L << remaining) - 1
+                                                       : -1L;
+                    long free = ~this.beyond[offset + w] & valid;
+                    this.solvent[offset + w] = free & within[w];
+                    this.beyond[offset + w] = free & ~within[w];
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the bits of an interval and clears all other bits.
+     * @param words
+     *        - Array of long values holding the bits.
+     * @param noOfWords
+     *        - integer value representing the number of long values to set.
+     * @param from
+     *        - integer value representing the first bit of the interval.
+     * @param to
+     *        - integer value representing the last bit of the interval. The
+     *          interval is empty if {@code to} is smaller than {@code from}.
+     */
+    private static void setInterval(final long[] words,
+                                    final int noOfWords,
+                                    final int from,
+                                    final int to) {
+        for (int w = 0; w < noOfWords; w++) {
+            int first = Math.max(from - w * Long.SIZE, 0);
+            int last = Math.min(to - w * Long.SIZE, Long.SIZE - 1);
+            if (first > last) {
+                words[w] = 0L;
+            } else {
+                words[w] = (-1L >>> (Long.SIZE - 1 - last)) & (-1L << first);
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the position of the first long value of a row.
+     * @param i
+     *        - integer value representing the index on the X dimension.
+     * @param j
+     *        - integer value representing the index on the Y dimension.
+     * @return integer value representing the position.
+     */
+    private int getRowOffset(final int i, final int j) {
+        return (i * this.noOfyCells + j) * this.noOfWords;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Expands the wavefront from the source cell layer by layer. In each
+     * layer, every row of the wavefront is dilated by one cell along the Z
+     * dimension and added to the nine neighbouring rows, before the result is
+     * restricted to unoccupied grid cells that have not been reached yet.
+     * @param sourceIndex
+     *        - integer value representing the flat index of the source cell.
+     * @param targetIndices
+     *        - Array of integer values holding the flat indices of target
+     *          cells.
+     * @param front
+     *        - Array of long values with all values set to 0 to hold the
+     *          wavefront.
+     * @param next
+     *        - Array of long values with all values set to 0 to hold the
+     *          next wavefront.
+     * @param dilated
+     *        - Array of long values to hold a dilated row of the wavefront.
+     */
+    private void expand(final int sourceIndex,
+                        final int[] targetIndices,
+                        final long[] front,
+                        final long[] next,
+                        final long[] dilated) {
+        int sourceBit = this.getBit(sourceIndex);
+        front[sourceBit >>> 6] |= 1L << sourceBit;
+        this.reached[sourceBit >>> 6] |= 1L << sourceBit;
+
+        boolean isActive = true;
+        while (isActive && !this.isDone(targetIndices)) {
+            // cells on the lower grid border have no neighbours, see
+            // GridUtilities.getNeighbouringCells().
+            for (int i = 1; i < this.noOfxCells; i++) {
+                for (int j = 1; j < this.noOfyCells; j++) {
+                    int offset = this.getRowOffset(i, j);
+                    front[offset] &= ~1L;
+                    boolean isEmpty = true;
+                    for (int w = 0; w < this.noOfWords; w++) {
+                        if (front[offset + w] != 0) {
+                            isEmpty = false;
+                        }
+                    }
+                    if (isEmpty) {
+                        continue;
+                    }
+                    for (int w = 0; w < this.noOfWords; w++) {
+                        long word = front[offset + w];
+                        long lower = w > 0 ? front[offset + w - 1] : 0L;
+                        long upper = w + 1 < this.noOfWords
+                                     ? front[offset + w + 1] : 0L;
+                        dilated[w] = word
+                                     | (word << 1)
+                                     | (lower >>> (Long.SIZE - 1))
+                                     | (word >>> 1)
+                                     | (upper << (Long.SIZE - 1));
+                    }
+                    for (int m = i - 1; m <= i + 1 && m < this.noOfxCells;
+                                                                          m++) {
+                        for (int n = j - 1; n <= j + 1 && n < this.noOfyCells;
+                                                                          n++) {
+                            int neighbour = this.getRowOffset(m, n);
+                            for (int w = 0; w < this.noOfWords; w++) {
+                                next[neighbour + w] |= dilated[w];
+                            }
+                        }
+                    }
+                }
+            }
+            isActive = false;
+            for (int w = 0; w < this.noOfRowWords; w++) {
+                long word = next[w] & ~this.reached[w];
+                next[w] = 0L;
+                if ((word & this.beyond[w]) != 0) {
+                    this.hasEscaped = true;
+                    // a search assigns distances to these cells as well, but
+                    // does not expand them.
+                    this.reached[w] |= word & this.beyond[w];
+                }
+                word &= this.solvent[w];
+                this.reached[w] |= word;
+                front[w] = word;
+                if (word != 0) {
+                    isActive = true;
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether the wavefront has escaped beyond the maximum distance
+     * and has reached all target cells.
+     * @param targetIndices
+     *        - Array of integer values holding the flat indices of target
+     *          cells.
+     * @return {@code TRUE} if the expansion can be stopped, {@code FALSE}
+     *         otherwise.
+     */
+    private boolean isDone(final int[] targetIndices) {
+        if (!this.hasEscaped) {
+            return false;
+        }
+        for (int index : targetIndices) {
+            if (!this.isReached(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the position of the bit of a grid cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return integer value representing the position of the bit.
+     */
+    private int getBit(final int index) {
+        return this.getRowOffset(this.grid.getI(index), this.grid.getJ(index))
+               * Long.SIZE + this.grid.getK(index);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether a grid cell has been reached by the wavefront. Cells that
+     * have not been reached will not be assigned any distance by a shortest
+     * path search from the same source cell with the same maximum distance.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return {@code TRUE} if the grid cell has been reached, {@code FALSE}
+     *         otherwise.
+     */
+    public final boolean isReached(final int index) {
+        int bit = this.getBit(index);
+        return (this.reached[bit >>> 6] & (1L << bit)) != 0;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the source cell is connected via unoccupied grid cells
+     * to any cell farther away than the maximum distance on an empty grid.
+     * @return {@code TRUE} if the wavefront escaped beyond the maximum
+     *         distance, {@code FALSE} otherwise.
+     */
+    public final boolean hasEscaped() {
+        return this.hasEscaped;
+    }
+}
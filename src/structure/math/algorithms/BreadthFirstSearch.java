@@ -16,15 +16,13 @@
 package structure.math.algorithms;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 
-import structure.constants.Constants;
 import structure.grid.Grid;
 import structure.grid.GridCell;
-import structure.grid.GridUtilities;
-import structure.grid.Path;
-import structure.math.Mathematics;
-import xwalk.crosslink.CrossLinkParameter;
-import xwalk.crosslink.CrossLinkParameter.Parameter;
+import structure.math.Point3f;
+import structure.math.Point3i;
 
 /**
  * Set the distances in the surroundings of a source cell with a grid.
@@ -32,49 +30,34 @@ import xwalk.crosslink.CrossLinkParameter.Parameter;
  * @version 0.1
  * @since 0.1
  */
-public class BreadthFirstSearch {
-    /**
-     * Shortest path as calculated between a source and a target cell.
-     */
-    private Path path = new Path();
-
-    /**
-     * Constant, indicating that the target cell is the first in the path.
-     */
-    public static final int CELL_NO_OF_TARGET_CELL_IN_PATH = 0;
+public class BreadthFirstSearch extends ShortestPathSearch {
 
     /**
-     * Boolean indicating whether distance assignment had to end prematurely,
-     * due to solvent inaccessibility of cross-link.
+     * Precomputed steps to the neighbours of a grid cell.
      */
-    private boolean hasSucceeded = false;
+    private NeighbourStencil stencil;
 
     /**
-     * List of target grid cells, which represent the end point in the
-     * distance calculation.
+     * Cartesian coordinates of the grid cell centres on the X dimension.
      */
-    private ArrayList < GridCell > targets;
+    private float[] xCentres;
 
     /**
-     * Grid object in which the entire search is done.
+     * Cartesian coordinates of the grid cell centres on the Y dimension.
      */
-    private Grid grid;
+    private float[] yCentres;
 
     /**
-     * float value representing the maximum distance to search for in the grid.
+     * Cartesian coordinates of the grid cell centres on the Z dimension.
      */
-    private float maxDist;
+    private float[] zCentres;
 
     /**
-     * Source grid cell, which represents the starting point for the
-     * distance calculation.
+     * Flat indices of the grid cells that have been added to the actives of
+     * the next round. All bits are cleared again at the end of each round, so
+     * that the bitset is allocated only once per search.
      */
-    private GridCell source;
-
-    /**
-     * Trash for removing grid cells from the search for the shortest path.
-     */
-    private static ArrayList <GridCell> trash = new ArrayList<GridCell>();
+    private BitSet isNewActive = new BitSet();
 
     //--------------------------------------------------------------------------
     /**
@@ -96,56 +79,45 @@ public class BreadthFirstSearch {
                               final GridCell source,
                               final ArrayList < GridCell > targets,
                               final float maxDist) {
-        this.grid = grid;
-        this.source = source;
-        this.targets = targets;
-        this.maxDist = maxDist;
-
-        // set value of source cell to 0.0
-        this.source.setDistance(0.0f);
-
+        super(grid, source, targets, maxDist);
     }
     //--------------------------------------------------------------------------
     /**
-     * Perform breadth-first search on the grid to find the shortest path
-     * between a single grid cell and a list of other grid cells.
-     * @return List of path objects, holding each the path between the source
-     *         and one target cell. If no path could be found, than each
-     *         path object holds only the target cell.
+     * Perform breadth-first search on the grid starting from the source cell.
      */
-    public final ArrayList < Path > findShortestPath() {
+    protected final void setDistances() {
 
-        ArrayList < GridCell > actives = new ArrayList < GridCell >();
+        if (this.isFinished()) {
+            return;
+        }
 
-        actives.add(this.source);
+        this.stencil = new NeighbourStencil(this.getGrid());
+        this.setCentres();
+        int[] actives = this.getSourceIndices().clone();
 
         // start breadth-first search from grid cell.
-        this.setDistanceRecursively(actives);
-
-        // trace back the path
-        ArrayList < Path > paths = new ArrayList < Path >();
-        for (GridCell target : this.targets) {
-            // first element in the path is the target cell itself.
-            // Last element will be the source cell.
-            this.path.add(BreadthFirstSearch.CELL_NO_OF_TARGET_CELL_IN_PATH,
-                          target.copy());
-            // if distance calculation succeeded and user wants a PyMOL output
-            // backtrack shortest path.
-            if (target.getDistance() != Constants.DEFAULT_GRID_DISTANCE
-               &&
-               Boolean.parseBoolean(CrossLinkParameter.getParameter(
-                                                      Parameter.DO_PYMOL_OUTPUT)
-                                                                    )) {
-                this.backtrackPath(target);
-                paths.add(this.path);
-                this.path = new Path();
-            } else {
-                // otherwise leave path only with targetCell.
-                paths.add(this.path);
-                this.path = new Path();
-            }
+        this.setDistanceRecursively(actives, actives.length);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Collects the Cartesian coordinates of the grid cell centres on each
+     * dimension, so that the step lengths need no Point3f objects.
+     */
+    private void setCentres() {
+        Grid grid = this.getGrid();
+        Point3i noOfCells = grid.getNumberOfCells();
+        this.xCentres = new float[noOfCells.getI()];
+        this.yCentres = new float[noOfCells.getJ()];
+        this.zCentres = new float[noOfCells.getK()];
+        for (int i = 0; i < this.xCentres.length; i++) {
+            this.xCentres[i] = grid.getXYZ(grid.getIndex(i, 0, 0)).getX();
+        }
+        for (int j = 0; j < this.yCentres.length; j++) {
+            this.yCentres[j] = grid.getXYZ(grid.getIndex(0, j, 0)).getY();
+        }
+        for (int k = 0; k < this.zCentres.length; k++) {
+            this.zCentres[k] = grid.getXYZ(grid.getIndex(0, 0, k)).getZ();
         }
-        return paths;
     }
     //--------------------------------------------------------------------------
 
@@ -153,126 +125,153 @@ public class BreadthFirstSearch {
      * Sets the distances for all grid cells that lie in-between the source cell
      * and a list of target cells.
      * @param actives
-     *        - List of GridCells for which neighbouring cells have to be
-     *          determined and distances calculated.
+     *        - Array of flat grid cell indices for which neighbouring cells
+     *          have to be determined and distances calculated.
+     * @param noOfActives
+     *        - integer value representing the number of indices in
+     *          {@code actives}.
      */
-    private void setDistanceRecursively(final ArrayList < GridCell > actives) {
+    private void setDistanceRecursively(final int[] actives,
+                                        final int noOfActives) {
+        Grid grid = this.getGrid();
+        int[] offsets = this.stencil.getOffsets();
+        int[] backDirections = this.stencil.getBackDirections();
+        boolean backtracking = this.isBacktrackingSet();
         // neighboring grid cells become new actives for the next round of
         // breadth-first-search.
-        ArrayList < GridCell > newActives = new ArrayList < GridCell >();
-        for (GridCell active : actives) {
-
-             ArrayList < GridCell > neighbours =
-                            GridUtilities.getNeighbouringCells(active,
-                                                               this.grid,
-                                                               1);
-
-             for (GridCell neighbour : neighbours) {
-                  float currentDist = Integer.MIN_VALUE;
-                  float newDist = Integer.MIN_VALUE;
-
-                  if (!neighbour.isOccupied()) {
-                      currentDist = neighbour.getDistance();
-                      // The distance of the neighboring grid cell is the
-                      // distance of the current active cell + the distance
-                      // between the active and the neighboring cell.
-                      newDist = active.getDistance()
-                              + (float) Mathematics.distance(active.getXYZ(),
-                                                             neighbour.getXYZ()
-                                                            );
-                      // distance from other active cell might be shorter.
-                      if (newDist < currentDist) {
-                          neighbour.setDistance(newDist);
-                          if (!newActives.contains(neighbour)) {
-                              newActives.add(neighbour);
-                          }
-                      }
+        int[] newActives = new int[2 * noOfActives + offsets.length];
+        int noOfNewActives = 0;
+        for (int a = 0; a < noOfActives; a++) {
+             int active = actives[a];
+             int i = grid.getI(active);
+             int j = grid.getJ(active);
+             int k = grid.getK(active);
+             // cells on the lower grid border have no neighbours, see
+             // GridUtilities.getNeighbouringCells().
+             if (i == 0 || j == 0 || k == 0) {
+                 continue;
+             }
+             float activeDist = grid.getDistance(active);
+             // neighbours of cells in the grid interior need no bounds check.
+             boolean isInterior = this.stencil.isInterior(i, j, k);
+             for (int n = 0; n < offsets.length; n++) {
+                  if (!isInterior && !this.stencil.isInGrid(i, j, k, n)) {
+                      continue;
+                  }
+                  int neighbour = active + offsets[n];
+                  if (grid.isOccupied(neighbour)
+                      ||
+                      !this.isInRegion(neighbour)) {
+                      continue;
                   }
-                  /*
-                   * -------------------------------------------------------
-                   * Following section has to be removed as it produces
-                   * inconsistent results when running distance calculations
-                   * for multiple cross-links.
-                   * -------------------------------------------------------
-                  // check whether we have reached the target cell already.
-                  // If so, remove target from list of targets.
-                  GridCell equal = GridUtilities.equals(neighbour,
-                                                        this.targets);
-                  if (equal != null) {
-                      this.targetsFoundInSearch.add(neighbour);
-                      if (this.targets.size()
-                          ==
-                          this.targetsFoundInSearch.size()) {
-                          this.hasFinished = true;
-                          // The next return command could be removed
-                          // which would allow a consistent SASD calculation
-                          // between Xwalk runs with explicit AA information
-                          // via command line and AA provided by a distance
-                          // file. However at the same time the calculation
-                          // time increases by 100%. For the moment the
-                          // preference is put on speed.
-                          return;
+                  // The distance of the neighboring grid cell is the
+                  // distance of the current active cell + the distance
+                  // between the active and the neighboring cell.
+                  float newDist = activeDist + this.getStepLength(i, j, k, n);
+                  // distance from other active cell might be shorter.
+                  if (newDist < grid.getDistance(neighbour)) {
+                      grid.setDistance(neighbour, newDist);
+                      if (backtracking) {
+                          this.setPredecessor(neighbour, backDirections[n]);
+                      }
+                      if (!this.isNewActive.get(neighbour)) {
+                          this.isNewActive.set(neighbour);
+                          if (noOfNewActives == newActives.length) {
+                              newActives = Arrays.copyOf(newActives,
+                                                         2 * noOfNewActives);
+                          }
+                          newActives[noOfNewActives++] = neighbour;
                       }
                   }
-                  */
              }
         }
         // Check whether it is necessary to continue distance calculation,
         // as all newActives might have already distances larger than maxDist.
-        int maxDistCount = 0;
-        for (GridCell neighbour : newActives) {
-             double neighbourDistance = neighbour.getDistance();
-             if (neighbourDistance > this.maxDist) {
-                 maxDistCount++;
-                 BreadthFirstSearch.trash.add(neighbour);
-                 this.hasSucceeded = true;
+        int noOfKept = 0;
+        for (int a = 0; a < noOfNewActives; a++) {
+             int neighbour = newActives[a];
+             this.isNewActive.clear(neighbour);
+             if (grid.getDistance(neighbour) > this.getMaxDist()) {
+                 this.setSucceeded();
+             } else {
+                 newActives[noOfKept++] = neighbour;
              }
         }
         // break up recursive loop.
-        if (maxDistCount == newActives.size()) {
+        if (noOfKept == 0) {
             return;
         }
 
-        newActives.removeAll(BreadthFirstSearch.trash);
-        BreadthFirstSearch.trash.clear();
+        if (this.isEarlyTerminationSet()) {
+            this.settleTargets(newActives, noOfKept);
+            if (this.isFinished()) {
+                return;
+            }
+        }
 
-        this.setDistanceRecursively(newActives);
+        this.setDistanceRecursively(newActives, noOfKept);
     }
     //--------------------------------------------------------------------------
     /**
-     * Backtraces the path starting between a target cell and source cell.
-     * @param target
-     *        - Target grid cell, which represent the end point in the
-     *        distance calculation.
+     * Returns the distance between the centres of an active grid cell and
+     * one of its neighbours, calculated exactly as
+     * {@link structure.math.Mathematics#distance(Point3f, Point3f)} does on
+     * the Cartesian coordinates of both grid cells.
+     * @param i
+     *        - integer value representing the index of the active grid cell on
+     *          the X dimension.
+     * @param j
+     *        - integer value representing the index of the active grid cell on
+     *          the Y dimension.
+     * @param k
+     *        - integer value representing the index of the active grid cell on
+     *          the Z dimension.
+     * @param n
+     *        - integer value representing the number of the neighbour in the
+     *          stencil.
+     * @return float value representing the distance.
      */
-    private void backtrackPath(final GridCell target) {
-        ArrayList < GridCell > neighbours =
-                            GridUtilities.getNeighbouringCells(target,
-                                                               this.grid,
-                                                               1);
-        float minDist = target.getDistance();
-        GridCell minGridCell = target;
-        for (GridCell neighbour : neighbours) {
-            float dist = neighbour.getDistance();
-            if (dist < minDist) {
-                minDist = dist;
-                minGridCell = neighbour;
-            }
-        }
-        if (minGridCell == this.source) {
-            this.path.add(minGridCell.copy());
-            return;
-        }
-        this.path.add(minGridCell.copy());
-        this.backtrackPath(minGridCell);
+    private float getStepLength(final int i,
+                                final int j,
+                                final int k,
+                                final int n) {
+        int[] steps = this.stencil.getSteps();
+        float dx = this.xCentres[i + steps[3 * n]] - this.xCentres[i];
+        float dy = this.yCentres[j + steps[3 * n + 1]] - this.yCentres[j];
+        float dz = this.zCentres[k + steps[3 * n + 2]] - this.zCentres[k];
+        return (float) Math.sqrt(Math.pow(dx, 2)
+                                 + Math.pow(dy, 2)
+                                 + Math.pow(dz, 2));
     }
     //--------------------------------------------------------------------------
     /**
-     * Returns whether the search for a target was successful.
-     * @return {@code TRUE} if search found target cell, {@code FALSE}
-     * otherwise.
+     * Settles all target cells whose distance can not be shortened anymore
+     * in the next rounds of the breadth-first search. Any distance assigned in
+     * the next rounds is at least one grid cell edge longer than the smallest
+     * distance of all currently active grid cells.
+     * @param actives
+     *        - Array of flat grid cell indices that will be expanded in the
+     *          next round.
+     * @param noOfActives
+     *        - integer value representing the number of indices in
+     *          {@code actives}.
      */
-    public final boolean hasSucceeded() {
-        return this.hasSucceeded;
+    private void settleTargets(final int[] actives, final int noOfActives) {
+        float minActiveDist = Float.MAX_VALUE;
+        for (int a = 0; a < noOfActives; a++) {
+             minActiveDist = Math.min(minActiveDist,
+                                      this.getGrid().getDistance(actives[a]));
+        }
+        // the distance between neighbouring cell centers might be marginally
+        // smaller than the cell edge due to float rounding.
+        float bound = minActiveDist + this.getGrid().getCellSize() * 0.999f;
+        BitSet targets = this.getUnsettledTargets();
+        for (int index = targets.nextSetBit(0);
+             index >= 0;
+             index = targets.nextSetBit(index + 1)) {
+             if (this.getGrid().getDistance(index) <= bound) {
+                 this.settle(index);
+             }
+        }
     }
 }
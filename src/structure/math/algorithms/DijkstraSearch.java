@@ -0,0 +1,204 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ *
+ */
+
+package structure.math.algorithms;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import structure.grid.Grid;
+import structure.grid.GridCell;
+
+/**
+ * Set the distances in the surroundings of a source cell with a grid by
+ * Dijkstra's algorithm on the 26-neighbour graph of grid cells.
+ * <p>
+ * Tentative distances are held in a bucket queue, in which each bucket covers
+ * a distance interval of one cell edge length. As the shortest step between
+ * two cells is exactly one cell edge, no cell within a bucket can improve the
+ * distance of another cell within the same bucket, so that all cells of the
+ * lowest non-empty bucket are final and the search is exact. The longest step
+ * is the space diagonal of a cell, i.e. shorter than two edge lengths, hence a
+ * ring of four buckets is sufficient.
+ * </p>
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class DijkstraSearch extends ShortestPathSearch {
+
+    /**
+     * Number of buckets in the ring of the bucket queue. Must be a power of 2.
+     */
+    private static final int NUMBER_OF_BUCKETS = 4;
+
+    /**
+     * Initial capacity of each bucket.
+     */
+    private static final int INITIAL_BUCKET_SIZE = 256;
+
+    /**
+     * Grid cell indices held in each bucket.
+     */
+    private int[][] buckets = new int[NUMBER_OF_BUCKETS][INITIAL_BUCKET_SIZE];
+
+    /**
+     * Number of grid cell indices held in each bucket.
+     */
+    private int[] bucketSizes = new int[NUMBER_OF_BUCKETS];
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param grid
+     *        - Grid object in which the entire search is done.
+     * @param source
+     *        - Source grid cell, which represents the starting point for the
+     *          distance calculation.
+     * @param targets
+     *        - List of target grid cells, which represent the end point in the
+     *          distance calculation
+     * @param maxDist
+     *        - float value representing the maximum distance to search for in
+     *          the grid
+     */
+    public DijkstraSearch(final Grid grid,
+                          final GridCell source,
+                          final ArrayList < GridCell > targets,
+                          final float maxDist) {
+        super(grid, source, targets, maxDist);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Performs Dijkstra's search on the grid starting from the source cell.
+     * Cells with distances larger than the maximum distance get a final
+     * distance assigned, but are not expanded any further. If early
+     * termination is set, a target cell is settled as soon as it is taken
+     * from the queue.
+     */
+    protected final void setDistances() {
+        Grid grid = this.getGrid();
+        float maxDist = this.getMaxDist();
+        float cellSize = grid.getCellSize();
+
+        NeighbourStencil stencil = new NeighbourStencil(grid);
+        int[] offsets = stencil.getOffsets();
+        float[] stepCosts = stencil.getStepCosts();
+        int[] backDirections = stencil.getBackDirections();
+
+        if (this.isFinished()) {
+            return;
+        }
+        boolean backtracking = this.isBacktrackingSet();
+        BitSet settled = new BitSet(grid.size());
+        int[] sourceIndices = this.getSourceIndices();
+        for (int sourceIndex : sourceIndices) {
+            this.push(sourceIndex, 0);
+        }
+        int queued = sourceIndices.length;
+
+        for (int bucket = 0; queued > 0; bucket++) {
+            int slot = bucket & (NUMBER_OF_BUCKETS - 1);
+            // cells might still be added to the current bucket due to float
+            // rounding, so re-read the bucket size in every iteration.
+            for (int b = 0; b < this.bucketSizes[slot]; b++) {
+                int index = this.buckets[slot][b];
+                queued--;
+                float dist = grid.getDistance(index);
+                if (settled.get(index)
+                    ||
+                    DijkstraSearch.getBucket(dist, cellSize) > bucket) {
+                    // stale queue entry.
+                    continue;
+                }
+                settled.set(index);
+                this.settle(index);
+                if (dist > maxDist) {
+                    this.setSucceeded();
+                }
+                if (this.isFinished()) {
+                    return;
+                }
+                if (dist > maxDist) {
+                    continue;
+                }
+                int i = grid.getI(index);
+                int j = grid.getJ(index);
+                int k = grid.getK(index);
+                // cells on the lower grid border are not expanded, exactly as
+                // in GridUtilities.getNeighbouringCells().
+                if (i == 0 || j == 0 || k == 0) {
+                    continue;
+                }
+                // neighbours of interior cells need no bounds check.
+                boolean isInterior = stencil.isInterior(i, j, k);
+                for (int n = 0; n < offsets.length; n++) {
+                    if (!isInterior && !stencil.isInGrid(i, j, k, n)) {
+                        continue;
+                    }
+                    int neighbour = index + offsets[n];
+                    if (grid.isOccupied(neighbour)
+                        ||
+                        !this.isInRegion(neighbour)) {
+                        continue;
+                    }
+                    float newDist = dist + stepCosts[n];
+                    if (newDist < grid.getDistance(neighbour)) {
+                        grid.setDistance(neighbour, newDist);
+                        if (backtracking) {
+                            this.setPredecessor(neighbour, backDirections[n]);
+                        }
+                        this.push(neighbour,
+                                  Math.max(bucket,
+                                           DijkstraSearch.getBucket(newDist,
+                                                                    cellSize)));
+                        queued++;
+                    }
+                }
+            }
+            this.bucketSizes[slot] = 0;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the bucket number of a distance.
+     * @param dist
+     *        - float value representing the distance.
+     * @param width
+     *        - float value representing the distance interval of each bucket.
+     * @return integer value representing the bucket number.
+     */
+    private static int getBucket(final float dist, final float width) {
+        return (int) (dist / width);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Adds a grid cell index to a bucket of the queue.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @param bucket
+     *        - integer value representing the bucket number.
+     */
+    private void push(final int index, final int bucket) {
+        int slot = bucket & (NUMBER_OF_BUCKETS - 1);
+        if (this.bucketSizes[slot] == this.buckets[slot].length) {
+            int[] larger = new int[this.buckets[slot].length * 2];
+            System.arraycopy(this.buckets[slot], 0,
+                             larger, 0, this.bucketSizes[slot]);
+            this.buckets[slot] = larger;
+        }
+        this.buckets[slot][this.bucketSizes[slot]++] = index;
+    }
+}
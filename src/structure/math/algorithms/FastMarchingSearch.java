@@ -0,0 +1,435 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ *
+ */
+
+package structure.math.algorithms;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import structure.grid.Grid;
+import structure.grid.GridCell;
+
+/**
+ * Set the distances in the surroundings of a source cell within a grid by
+ * the fast marching method, which solves the Eikonal equation
+ * {@code |grad T| = 1} on the unoccupied grid cells.
+ * <p>
+ * Shortest paths on the 26-neighbour graph of grid cells can only run along
+ * 26 directions, so that graph distances overestimate the Euclidean length of
+ * paths in other directions by up to 8%. The fast marching method instead
+ * computes the distance of a grid cell from the distances of its accepted
+ * face neighbours along all three dimensions with a first order upwind
+ * scheme, which allows paths to run in any direction. Additionally, every
+ * step on the 26-neighbour graph is taken into account, so that grid cells
+ * connected only via edges or corners are reached as well and no distance is
+ * longer than on the graph. Grid cells are accepted in the order of their
+ * distances from a binary heap, exactly as in Dijkstra's algorithm.
+ * </p>
+ * <p>
+ * As distances are shorter than on the graph, they might fall below the
+ * lower bounds of the other searches, which are derived from the graph.
+ * </p>
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class FastMarchingSearch extends ShortestPathSearch {
+
+    /**
+     * Initial capacity of the priority queue.
+     */
+    private static final int INITIAL_QUEUE_SIZE = 256;
+
+    /**
+     * Grid cell indices held in the binary heap of the priority queue.
+     */
+    private int[] queue = new int[INITIAL_QUEUE_SIZE];
+
+    /**
+     * Priorities of the grid cells held in the priority queue.
+     */
+    private float[] priorities = new float[INITIAL_QUEUE_SIZE];
+
+    /**
+     * Number of grid cells held in the priority queue.
+     */
+    private int queueSize = 0;
+
+    /**
+     * Grid cells, whose distances have been accepted as final.
+     */
+    private BitSet accepted;
+
+    /**
+     * Indices on the X, Y and Z dimension of the grid cell, at which the
+     * Eikonal equation is solved.
+     */
+    private int[] cell = new int[3];
+
+    /**
+     * Factors of the one-sided differences on each dimension.
+     */
+    private double[] alphas = new double[3];
+
+    /**
+     * Upwind distances of the one-sided differences on each dimension.
+     */
+    private double[] betas = new double[3];
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param grid
+     *        - Grid object in which the entire search is done.
+     * @param source
+     *        - Source grid cell, which represents the starting point for the
+     *          distance calculation.
+     * @param targets
+     *        - List of target grid cells, which represent the end point in the
+     *          distance calculation
+     * @param maxDist
+     *        - float value representing the maximum distance to search for in
+     *          the grid
+     */
+    public FastMarchingSearch(final Grid grid,
+                              final GridCell source,
+                              final ArrayList < GridCell > targets,
+                              final float maxDist) {
+        super(grid, source, targets, maxDist);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Performs the fast marching method on the grid starting from the source
+     * cell. Cells with distances larger than the maximum distance get a final
+     * distance assigned, but are not expanded any further.
+     */
+    protected final void setDistances() {
+        Grid grid = this.getGrid();
+        float maxDist = this.getMaxDist();
+
+        NeighbourStencil stencil = new NeighbourStencil(grid);
+        int[] offsets = stencil.getOffsets();
+        float[] stepCosts = stencil.getStepCosts();
+
+        if (this.isFinished()) {
+            return;
+        }
+        boolean backtracking = this.isBacktrackingSet();
+        this.accepted = new BitSet(grid.size());
+        for (int sourceIndex : this.getSourceIndices()) {
+            this.push(sourceIndex, 0);
+        }
+
+        while (this.queueSize > 0) {
+            int index = this.pop();
+            if (this.accepted.get(index)) {
+                // stale queue entry.
+                continue;
+            }
+            this.accepted.set(index);
+            this.settle(index);
+            float dist = grid.getDistance(index);
+            if (backtracking && !this.isSource(index)) {
+                this.setPredecessor(index);
+            }
+            if (dist > maxDist) {
+                this.setSucceeded();
+            }
+            if (this.isFinished()) {
+                return;
+            }
+            if (dist > maxDist) {
+                continue;
+            }
+            int i = grid.getI(index);
+            int j = grid.getJ(index);
+            int k = grid.getK(index);
+            // cells on the lower grid border are not expanded, exactly as
+            // in GridUtilities.getNeighbouringCells().
+            if (i == 0 || j == 0 || k == 0) {
+                continue;
+            }
+            // neighbours of cells in the grid interior need no bounds check.
+            boolean isInterior = stencil.isInterior(i, j, k);
+            for (int n = 0; n < offsets.length; n++) {
+                if (!isInterior && !stencil.isInGrid(i, j, k, n)) {
+                    continue;
+                }
+                int neighbour = index + offsets[n];
+                if (this.accepted.get(neighbour)
+                    ||
+                    grid.isOccupied(neighbour)
+                    ||
+                    !this.isInRegion(neighbour)) {
+                    continue;
+                }
+                float newDist = dist + stepCosts[n];
+                // only the distances of face neighbours depend on the
+                // distance of this cell in the upwind scheme.
+                if (stencil.isFaceStep(n)) {
+                    newDist = Math.min(newDist, this.solveEikonal(neighbour));
+                }
+                if (newDist < grid.getDistance(neighbour)) {
+                    grid.setDistance(neighbour, newDist);
+                    this.push(neighbour, newDist);
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Solves the Eikonal equation at a grid cell with an upwind scheme. On
+     * each dimension, the accepted face neighbour with the smaller distance is
+     * used. If the next cell beyond it has been accepted as well and is not
+     * farther away, the second order one-sided difference is taken, otherwise
+     * the first order one. Dimensions are added in the order of their upwind
+     * distances as long as they lie below the solution. The solution is never
+     * shorter than the Euclidean distance to the nearest source cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return float value representing the distance of the grid cell.
+     */
+    private float solveEikonal(final int index) {
+        Grid grid = this.getGrid();
+        double h = grid.getCellSize();
+        int[] cell = this.cell;
+        cell[0] = grid.getI(index);
+        cell[1] = grid.getJ(index);
+        cell[2] = grid.getK(index);
+        // the one-sided difference on each dimension reads
+        // alpha * (T - beta).
+        double[] alphas = this.alphas;
+        double[] betas = this.betas;
+        for (int d = 0; d < 3; d++) {
+            alphas[d] = 0;
+            betas[d] = Double.POSITIVE_INFINITY;
+            for (int side = -1; side <= 1; side += 2) {
+                double t1 = this.getAcceptedDistance(cell, d, side);
+                if (t1 == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double t2 = this.getAcceptedDistance(cell, d, 2 * side);
+                double alpha = 1 / h;
+                double beta = t1;
+                if (t2 <= t1) {
+                    alpha = 3 / (2 * h);
+                    beta = (4 * t1 - t2) / 3;
+                }
+                if (beta < betas[d]) {
+                    alphas[d] = alpha;
+                    betas[d] = beta;
+                }
+            }
+        }
+        // sort dimensions by their upwind distances.
+        this.sortDimensions(0, 1);
+        this.sortDimensions(0, 2);
+        this.sortDimensions(1, 2);
+        double dist = Double.POSITIVE_INFINITY;
+        double a = 0;
+        double b = 0;
+        double c = -1;
+        for (int d = 0; d < 3; d++) {
+            if (betas[d] >= dist) {
+                break;
+            }
+            double alpha2 = alphas[d] * alphas[d];
+            a += alpha2;
+            b -= 2 * alpha2 * betas[d];
+            c += alpha2 * betas[d] * betas[d];
+            double discriminant = b * b - 4 * a * c;
+            if (discriminant < 0) {
+                break;
+            }
+            dist = (-b + Math.sqrt(discriminant)) / (2 * a);
+        }
+        // second order differences might undershoot close to the source, but
+        // no path can be shorter than the straight line to the nearest source.
+        double min = Double.MAX_VALUE;
+        for (int sourceIndex : this.getSourceIndices()) {
+            double di = cell[0] - grid.getI(sourceIndex);
+            double dj = cell[1] - grid.getJ(sourceIndex);
+            double dk = cell[2] - grid.getK(sourceIndex);
+            min = Math.min(min, di * di + dj * dj + dk * dk);
+        }
+        return (float) Math.max(dist, h * Math.sqrt(min));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Swaps the one-sided differences of two dimensions, if the second one
+     * has the smaller upwind distance.
+     * @param x
+     *        - integer value between 0 and 2 representing the first dimension.
+     * @param y
+     *        - integer value between 0 and 2 representing the second
+     *          dimension, which must be larger than x.
+     */
+    private void sortDimensions(final int x, final int y) {
+        if (this.betas[y] < this.betas[x]) {
+            double alpha = this.alphas[x];
+            double beta = this.betas[x];
+            this.alphas[x] = this.alphas[y];
+            this.betas[x] = this.betas[y];
+            this.alphas[y] = alpha;
+            this.betas[y] = beta;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the distance of a grid cell along one dimension of another grid
+     * cell, if it has been accepted.
+     * @param cell
+     *        - Array of integer values holding the indices of the other grid
+     *          cell on the X, Y and Z dimension.
+     * @param dimension
+     *        - integer value between 0 and 2 representing the dimension.
+     * @param offset
+     *        - integer value representing the offset along the dimension.
+     * @return double value representing the distance of the grid cell or
+     *         {@code Double.POSITIVE_INFINITY} if the grid cell lies outside
+     *         the grid or has not been accepted yet.
+     */
+    private double getAcceptedDistance(final int[] cell,
+                                       final int dimension,
+                                       final int offset) {
+        return this.getAcceptedDistance(
+                               cell[0] + (dimension == 0 ? offset : 0),
+                               cell[1] + (dimension == 1 ? offset : 0),
+                               cell[2] + (dimension == 2 ? offset : 0));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the distance of a grid cell, if it has been accepted.
+     * @param i
+     *        - integer value representing the index on the X dimension.
+     * @param j
+     *        - integer value representing the index on the Y dimension.
+     * @param k
+     *        - integer value representing the index on the Z dimension.
+     * @return double value representing the distance of the grid cell or
+     *         {@code Double.POSITIVE_INFINITY} if the grid cell lies outside
+     *         the grid or has not been accepted yet.
+     */
+    private double getAcceptedDistance(final int i, final int j, final int k) {
+        int index = this.getGrid().getIndex(i, j, k);
+        if (index == -1 || !this.accepted.get(index)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return this.getGrid().getDistance(index);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Records the accepted neighbour with the smallest distance as the
+     * predecessor of a grid cell. As neighbours are accepted before the cell
+     * itself, the predecessors always lead back to the source cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     */
+    private void setPredecessor(final int index) {
+        Grid grid = this.getGrid();
+        int i = grid.getI(index);
+        int j = grid.getJ(index);
+        int k = grid.getK(index);
+        int direction = -1;
+        double min = Double.POSITIVE_INFINITY;
+        for (int m = -1; m <= 1; m++) {
+            for (int o = -1; o <= 1; o++) {
+                for (int p = -1; p <= 1; p++) {
+                    if (m == 0 && o == 0 && p == 0) {
+                        continue;
+                    }
+                    double dist = this.getAcceptedDistance(i + m,
+                                                           j + o,
+                                                           k + p);
+                    if (dist < min) {
+                        min = dist;
+                        direction = ShortestPathSearch.getDirection(m, o, p);
+                    }
+                }
+            }
+        }
+        this.setPredecessor(index, direction);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Adds a grid cell index to the priority queue.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @param priority
+     *        - float value representing the priority of the grid cell.
+     */
+    private void push(final int index, final float priority) {
+        if (this.queueSize == this.queue.length) {
+            int[] largerQueue = new int[this.queue.length * 2];
+            System.arraycopy(this.queue, 0, largerQueue, 0, this.queueSize);
+            this.queue = largerQueue;
+            float[] largerPriorities = new float[this.priorities.length * 2];
+            System.arraycopy(this.priorities, 0,
+                             largerPriorities, 0, this.queueSize);
+            this.priorities = largerPriorities;
+        }
+        int n = this.queueSize++;
+        while (n > 0 && this.priorities[(n - 1) / 2] > priority) {
+            this.queue[n] = this.queue[(n - 1) / 2];
+            this.priorities[n] = this.priorities[(n - 1) / 2];
+            n = (n - 1) / 2;
+        }
+        this.queue[n] = index;
+        this.priorities[n] = priority;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Removes the grid cell index with the lowest priority from the priority
+     * queue.
+     * @return integer value representing the flat index of the grid cell.
+     */
+    private int pop() {
+        int index = this.queue[0];
+        this.queueSize--;
+        this.queue[0] = this.queue[this.queueSize];
+        this.priorities[0] = this.priorities[this.queueSize];
+        this.siftDown(0);
+        return index;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Moves an element of the binary heap down until the heap order is
+     * restored.
+     * @param position
+     *        - integer value representing the position of the element within
+     *          the heap.
+     */
+    private void siftDown(final int position) {
+        int index = this.queue[position];
+        float priority = this.priorities[position];
+        int n = position;
+        while (2 * n + 1 < this.queueSize) {
+            int child = 2 * n + 1;
+            if (child + 1 < this.queueSize
+                &&
+                this.priorities[child + 1] < this.priorities[child]) {
+                child++;
+            }
+            if (this.priorities[child] >= priority) {
+                break;
+            }
+            this.queue[n] = this.queue[child];
+            this.priorities[n] = this.priorities[child];
+            n = child;
+        }
+        this.queue[n] = index;
+        this.priorities[n] = priority;
+    }
+}
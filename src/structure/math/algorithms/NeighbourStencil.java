@@ -0,0 +1,194 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ *
+ */
+
+package structure.math.algorithms;
+
+import structure.grid.Grid;
+import structure.math.Point3i;
+
+/**
+ * Class holding the precomputed steps from a grid cell to its 26 neighbours,
+ * i.e. the flat index offsets, the step costs and the direction codes of the
+ * steps back. The neighbours of a grid cell in the interior of the grid, i.e.
+ * a grid cell that does not lie on the upper grid border, all lie within the
+ * grid, so that the searches visit them without any bounds check. Only the
+ * steps from grid cells on the upper grid border need to be checked. Grid
+ * cells on the lower grid border are never expanded, see
+ * {@link structure.grid.GridUtilities#getNeighbouringCells(
+ * structure.grid.GridCell, Grid, int)}.
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+class NeighbourStencil {
+
+    /**
+     * Number of neighbours of a grid cell.
+     */
+    static final int NUMBER_OF_NEIGHBOURS = 26;
+
+    /**
+     * Flat index offsets of all neighbours.
+     */
+    private int[] offsets = new int[NUMBER_OF_NEIGHBOURS];
+
+    /**
+     * Steps to all neighbours, stored as consecutive i,j,k triples.
+     */
+    private int[] steps = new int[3 * NUMBER_OF_NEIGHBOURS];
+
+    /**
+     * Lengths of the steps to all neighbours.
+     */
+    private float[] stepCosts = new float[NUMBER_OF_NEIGHBOURS];
+
+    /**
+     * Direction codes of the steps back from all neighbours.
+     */
+    private int[] backDirections = new int[NUMBER_OF_NEIGHBOURS];
+
+    /**
+     * Number of grid cells in each dimension.
+     */
+    private Point3i noOfCells;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param grid
+     *        - Grid object whose neighbourhood is precomputed.
+     */
+    NeighbourStencil(final Grid grid) {
+        float cellSize = grid.getCellSize();
+        this.noOfCells = grid.getNumberOfCells();
+        int ny = this.noOfCells.getJ();
+        int nz = this.noOfCells.getK();
+        int n = 0;
+        for (int m = -1; m <= 1; m++) {
+            for (int o = -1; o <= 1; o++) {
+                for (int p = -1; p <= 1; p++) {
+                    if (m == 0 && o == 0 && p == 0) {
+                        continue;
+                    }
+                    this.offsets[n] = (m * ny + o) * nz + p;
+                    this.steps[3 * n] = m;
+                    this.steps[3 * n + 1] = o;
+                    this.steps[3 * n + 2] = p;
+                    this.stepCosts[n] = (float) (cellSize
+                                            * Math.sqrt(m * m + o * o + p * p));
+                    this.backDirections[n] = ShortestPathSearch.getDirection(
+                                                                            -m,
+                                                                            -o,
+                                                                            -p);
+                    n++;
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the flat index offsets of all neighbours.
+     * @return Array of integer values.
+     */
+    final int[] getOffsets() {
+        return this.offsets;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the steps to all neighbours.
+     * @return Array of integer values holding the steps along the X, Y and Z
+     *         dimension of each neighbour as consecutive triples.
+     */
+    final int[] getSteps() {
+        return this.steps;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the lengths of the steps to all neighbours.
+     * @return Array of float values.
+     */
+    final float[] getStepCosts() {
+        return this.stepCosts;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the direction codes of the steps back from all neighbours.
+     * @return Array of integer values.
+     * @see ShortestPathSearch#getDirection(int, int, int)
+     */
+    final int[] getBackDirections() {
+        return this.backDirections;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether the step to a neighbour runs along a single dimension.
+     * @param n
+     *        - integer value representing the number of the neighbour.
+     * @return {@code TRUE} if the neighbour shares a face with the grid cell,
+     *         {@code FALSE} otherwise.
+     */
+    final boolean isFaceStep(final int n) {
+        return Math.abs(this.steps[3 * n])
+               + Math.abs(this.steps[3 * n + 1])
+               + Math.abs(this.steps[3 * n + 2]) == 1;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether a grid cell lies in the interior of the grid, so that
+     * all of its neighbours lie within the grid.
+     * @param i
+     *        - integer value representing the index on the X dimension.
+     * @param j
+     *        - integer value representing the index on the Y dimension.
+     * @param k
+     *        - integer value representing the index on the Z dimension.
+     * @return {@code TRUE} if the grid cell lies neither on the lower nor on
+     *         the upper grid border, {@code FALSE} otherwise.
+     */
+    final boolean isInterior(final int i, final int j, final int k) {
+        return i > 0 && j > 0 && k > 0
+               &&
+               i < this.noOfCells.getI() - 1
+               &&
+               j < this.noOfCells.getJ() - 1
+               &&
+               k < this.noOfCells.getK() - 1;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether a neighbour of a grid cell on the upper grid border lies
+     * within the grid.
+     * @param i
+     *        - integer value representing the index on the X dimension.
+     * @param j
+     *        - integer value representing the index on the Y dimension.
+     * @param k
+     *        - integer value representing the index on the Z dimension.
+     * @param n
+     *        - integer value representing the number of the neighbour.
+     * @return {@code TRUE} if the neighbour lies within the grid,
+     *         {@code FALSE} otherwise.
+     */
+    final boolean isInGrid(final int i,
+                           final int j,
+                           final int k,
+                           final int n) {
+        return i + this.steps[3 * n] < this.noOfCells.getI()
+               &&
+               j + this.steps[3 * n + 1] < this.noOfCells.getJ()
+               &&
+               k + this.steps[3 * n + 2] < this.noOfCells.getK();
+    }
+}
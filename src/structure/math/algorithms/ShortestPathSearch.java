@@ -0,0 +1,803 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ *
+ */
+
+package structure.math.algorithms;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import structure.constants.Constants;
+import structure.grid.Grid;
+import structure.grid.GridCell;
+import structure.grid.Path;
+import structure.math.Point3i;
+
+/**
+ * Abstract class for algorithms that set the distances in the surroundings of
+ * a source cell within a grid and trace back the shortest paths to a list of
+ * target cells. Subclasses only have to implement the distance assignment.
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public abstract class ShortestPathSearch {
+    /**
+     * Shortest path as calculated between a source and a target cell.
+     */
+    private Path path = new Path();
+
+    /**
+     * Constant, indicating that the target cell is the first in the path.
+     */
+    public static final int CELL_NO_OF_TARGET_CELL_IN_PATH = 0;
+
+    /**
+     * Boolean indicating whether distance assignment had to end prematurely,
+     * due to solvent inaccessibility of cross-link.
+     */
+    private boolean hasSucceeded = false;
+
+    /**
+     * List of target grid cells, which represent the end point in the
+     * distance calculation.
+     */
+    private ArrayList < GridCell > targets;
+
+    /**
+     * Grid object in which the entire search is done.
+     */
+    private Grid grid;
+
+    /**
+     * float value representing the maximum distance to search for in the grid.
+     */
+    private float maxDist;
+
+    /**
+     * Source grid cell, which represents the starting point for the
+     * distance calculation.
+     */
+    private GridCell source;
+
+    /**
+     * Flat grid indices of all source cells, starting with the index of the
+     * source cell given to the constructor.
+     */
+    private int[] sourceIndices;
+
+    /**
+     * Boolean indicating whether the shortest paths should be traced back from
+     * the target cells to the source cell.
+     * Default {@code doBacktracking = FALSE}.
+     */
+    private boolean doBacktracking = false;
+
+    /**
+     * Boolean indicating whether the search should stop as soon as all target
+     * cells have been settled.
+     * Default {@code doEarlyTermination = FALSE}.
+     */
+    private boolean doEarlyTermination = false;
+
+    /**
+     * Flat grid indices of all target cells that have not been settled yet.
+     */
+    private BitSet unsettledTargets;
+
+    /**
+     * Number of target cells that have not been settled yet.
+     */
+    private int noOfUnsettledTargets = 0;
+
+    /**
+     * Boolean indicating whether the escape of the source cell beyond the
+     * maximum distance has already been probed.
+     */
+    private boolean hasProbedEscape = false;
+
+    /**
+     * Boolean indicating whether the search should be bounded to the grid
+     * cells that can lie on a path to any target cell.
+     * Default {@code isBounded = FALSE}.
+     */
+    private boolean isBounded = false;
+
+    /**
+     * Flat grid indices of all grid cells to which the search is bounded.
+     * {@code NULL} if the search is not bounded.
+     */
+    private BitSet region;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param grid
+     *        - Grid object in which the entire search is done.
+     * @param source
+     *        - Source grid cell, which represents the starting point for the
+     *          distance calculation.
+     * @param targets
+     *        - List of target grid cells, which represent the end point in the
+     *          distance calculation
+     * @param maxDist
+     *        - float value representing the maximum distance to search for in
+     *          the grid
+     */
+    public ShortestPathSearch(final Grid grid,
+                              final GridCell source,
+                              final ArrayList < GridCell > targets,
+                              final float maxDist) {
+        this.grid = grid;
+        this.source = source;
+        this.targets = targets;
+        this.maxDist = maxDist;
+
+        // set value of source cell to 0.0
+        this.source.setDistance(0.0f);
+        this.sourceIndices = new int[] {source.getIndex()};
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Adds a further source cell to the search, e.g. for the distances from
+     * any atom of a residue. All source cells start with a distance of 0, so
+     * that the search assigns each grid cell the distance to its nearest
+     * source cell in a single pass. Source cells outside of the grid are
+     * ignored.
+     * @param cell
+     *        - Grid cell, which represents a further starting point for the
+     *          distance calculation.
+     */
+    public final void addSource(final GridCell cell) {
+        int index = cell.getIndex();
+        if (cell.getGrid() != this.grid || index == -1
+            ||
+            this.isSource(index)) {
+            return;
+        }
+        cell.setDistance(0.0f);
+        int[] larger = new int[this.sourceIndices.length + 1];
+        System.arraycopy(this.sourceIndices,
+                         0,
+                         larger,
+                         0,
+                         this.sourceIndices.length);
+        larger[this.sourceIndices.length] = index;
+        this.sourceIndices = larger;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the distances of all grid cells that lie in-between the source cell
+     * and the maximum distance.
+     */
+    protected abstract void setDistances();
+    //--------------------------------------------------------------------------
+    /**
+     * Performs the search on the grid to find the shortest path between a
+     * single grid cell and a list of other grid cells.
+     * @return List of path objects, holding each the path between the source
+     *         and one target cell. If no path could be found, than each
+     *         path object holds only the target cell.
+     */
+    public final ArrayList < Path > findShortestPath() {
+
+        if (this.doBacktracking) {
+            this.grid.enablePredecessors();
+        }
+        if (this.doEarlyTermination || this.isGoalDirected()) {
+            this.setUnsettledTargets();
+        }
+        if (this.isBounded) {
+            this.setRegion();
+        }
+        this.setDistances();
+        if (this.isBounded && !this.hasProbedEscape) {
+            this.hasProbedEscape = true;
+            if (this.canEscape()) {
+                this.hasSucceeded = true;
+            }
+        }
+
+        // trace back the path
+        ArrayList < Path > paths = new ArrayList < Path >();
+        for (GridCell target : this.targets) {
+            // first element in the path is the target cell itself.
+            // Last element will be the source cell.
+            this.path.add(ShortestPathSearch.CELL_NO_OF_TARGET_CELL_IN_PATH,
+                          target.copy());
+            // if distance calculation succeeded and user wants a PyMOL output
+            // backtrack shortest path.
+            if (target.getDistance() != Constants.DEFAULT_GRID_DISTANCE
+               &&
+               this.doBacktracking) {
+                this.backtrackPath(target);
+                paths.add(this.path);
+                this.path = new Path();
+            } else {
+                // otherwise leave path only with targetCell.
+                paths.add(this.path);
+                this.path = new Path();
+            }
+        }
+        return paths;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the shortest paths should be traced back from the target
+     * cells to the source cell, e.g. for the visualization of paths in PyMOL.
+     * Otherwise the paths hold only the target cells.
+     * @param backtracking
+     *        - boolean value, {@code TRUE} to trace back the shortest paths.
+     */
+    public final void setBacktracking(final boolean backtracking) {
+        this.doBacktracking = backtracking;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the shortest paths are traced back, in which case
+     * subclasses have to record the predecessor of each grid cell via
+     * {@link #setPredecessor(int, int)} whenever they shorten its
+     * distance.
+     * @return {@code TRUE} if paths are traced back, {@code FALSE} otherwise.
+     */
+    protected final boolean isBacktrackingSet() {
+        return this.doBacktracking;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the direction code of a step between two neighbouring grid
+     * cells.
+     * @param di
+     *        - integer value between -1 and 1 representing the step on the X
+     *          dimension.
+     * @param dj
+     *        - integer value between -1 and 1 representing the step on the Y
+     *          dimension.
+     * @param dk
+     *        - integer value between -1 and 1 representing the step on the Z
+     *          dimension.
+     * @return integer value between 0 and 26 representing the direction.
+     */
+    protected static int getDirection(final int di,
+                                      final int dj,
+                                      final int dk) {
+        return ((di + 1) * 3 + (dj + 1)) * 3 + (dk + 1);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Records the predecessor of a grid cell on its shortest path.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @param direction
+     *        - integer value representing the direction code of the step from
+     *          the grid cell to its predecessor.
+     * @see #getDirection(int, int, int)
+     */
+    protected final void setPredecessor(final int index,
+                                        final int direction) {
+        this.grid.setPredecessor(index, direction);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the search should be bounded to those grid cells that can
+     * lie on a path to any target cell. A path from the source cell to a
+     * target cell can never leave the ellipsoid whose foci are both cells and
+     * whose sum of focal distances is the path length. As the search labels
+     * no cell farther away than the maximum distance plus a space diagonal,
+     * the union of these ellipsoids holds all paths to target cells, so that
+     * their distances are the same as those of an unbounded search. The
+     * distances of all other cells in the grid remain incomplete.
+     * <p>
+     * A bounded search can not tell from the distances whether the source
+     * cell lies within a closed cavity. Therefore the search is only regarded
+     * as successful, if a depth-first probe through the entire grid
+     * reaches beyond the maximum distance. If the probe fails, the search
+     * should be repeated unbounded on a fresh search object.
+     * </p>
+     * @param bounded
+     *        - boolean value, {@code TRUE} to bound the search.
+     */
+    public final void setBoundedByTargets(final boolean bounded) {
+        this.isBounded = bounded;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the outcome of the probe whether the source cell is connected to
+     * any cell farther away than the maximum distance, when it is already
+     * known from a {@link BitboardFloodFill}, so that the search does not
+     * need to probe itself.
+     * @param canEscape
+     *        - boolean value, {@code TRUE} if the source cell is connected to
+     *          cells farther away than the maximum distance.
+     */
+    public final void setEscapeProbe(final boolean canEscape) {
+        this.hasProbedEscape = true;
+        if (canEscape) {
+            this.hasSucceeded = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Collects all grid cells whose sum of distances to any source cell and
+     * to any target cell is not larger than the longest distance the search
+     * can assign.
+     */
+    private void setRegion() {
+        float cellSize = this.grid.getCellSize();
+        // small margin to be on the safe side of float rounding.
+        double limit = (this.maxDist + Math.sqrt(3) * cellSize) / cellSize
+                       + 0.01;
+        this.region = new BitSet(this.grid.size());
+        for (int sourceIndex : this.sourceIndices) {
+            this.region.set(sourceIndex);
+            this.setRegion(sourceIndex, limit);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Adds all grid cells to the region whose sum of distances to a source
+     * cell and to any target cell is not larger than a limit.
+     * @param sourceIndex
+     *        - integer value representing the flat index of the source cell.
+     * @param limit
+     *        - double value representing the limit in units of grid cells.
+     */
+    private void setRegion(final int sourceIndex, final double limit) {
+        Point3i noOfCells = this.grid.getNumberOfCells();
+        int si = this.grid.getI(sourceIndex);
+        int sj = this.grid.getJ(sourceIndex);
+        int sk = this.grid.getK(sourceIndex);
+        for (GridCell target : this.targets) {
+            int index = target.getIndex();
+            if (target.getGrid() != this.grid || index == -1) {
+                continue;
+            }
+            int ti = this.grid.getI(index);
+            int tj = this.grid.getJ(index);
+            int tk = this.grid.getK(index);
+            double dist = Math.sqrt((ti - si) * (ti - si)
+                                    + (tj - sj) * (tj - sj)
+                                    + (tk - sk) * (tk - sk));
+            if (dist > limit) {
+                continue;
+            }
+            // axis-aligned bounding box of the ellipsoid, all in units of
+            // grid cells.
+            double a = limit / 2;
+            double b2 = a * a - dist * dist / 4;
+            int[] lower = new int[3];
+            int[] upper = new int[3];
+            int[] s = new int[] {si, sj, sk};
+            int[] t = new int[] {ti, tj, tk};
+            int[] n = new int[] {noOfCells.getI(),
+                                 noOfCells.getJ(),
+                                 noOfCells.getK()};
+            for (int x = 0; x < 3; x++) {
+                double u = dist == 0 ? 0 : (t[x] - s[x]) / dist;
+                double extent = Math.sqrt(a * a * u * u + b2 * (1 - u * u));
+                double centre = (s[x] + t[x]) / 2.0;
+                lower[x] = Math.max(0, (int) Math.floor(centre - extent));
+                upper[x] = Math.min(n[x] - 1, (int) Math.ceil(centre + extent));
+            }
+            for (int i = lower[0]; i <= upper[0]; i++) {
+                for (int j = lower[1]; j <= upper[1]; j++) {
+                    for (int k = lower[2]; k <= upper[2]; k++) {
+                        double sum = Math.sqrt((i - si) * (i - si)
+                                               + (j - sj) * (j - sj)
+                                               + (k - sk) * (k - sk))
+                                     + Math.sqrt((i - ti) * (i - ti)
+                                                 + (j - tj) * (j - tj)
+                                                 + (k - tk) * (k - tk));
+                        if (sum <= limit) {
+                            this.region.set(this.grid.getIndex(i, j, k));
+                        }
+                    }
+                }
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether a grid cell lies within the region to which the search
+     * is bounded.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return {@code TRUE} if the search is not bounded or the grid cell lies
+     *         within the region, {@code FALSE} otherwise.
+     */
+    protected final boolean isInRegion(final int index) {
+        return this.region == null || this.region.get(index);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the search should stop as soon as all target cells have
+     * been settled, i.e. as soon as no cell on the open frontier of the search
+     * is able to shorten the distance of any target cell anymore. The
+     * distances of all target cells, their paths and the success status of the
+     * search are identical to those of a full search. However, the distances
+     * of all other cells in the grid remain incomplete.
+     * @param earlyTermination
+     *        - boolean value, {@code TRUE} to stop the search early.
+     */
+    public final void setEarlyTermination(final boolean earlyTermination) {
+        this.doEarlyTermination = earlyTermination;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Registers all target cells that are able to get a distance assigned by
+     * the search as unsettled. Target cells outside of the grid and target
+     * cells that are out of reach even on an empty grid never get a distance
+     * assigned and are therefore settled right away.
+     */
+    private void setUnsettledTargets() {
+        float cellSize = this.grid.getCellSize();
+        // cells beyond maxDist are labeled but not expanded, so the largest
+        // distance that can be assigned is maxDist plus a space diagonal.
+        float reach = this.maxDist + (float) (Math.sqrt(3) * cellSize)
+                      + cellSize / 2;
+        this.unsettledTargets = new BitSet(this.grid.size());
+        for (GridCell target : this.targets) {
+            int index = target.getIndex();
+            if (target.getGrid() != this.grid || index == -1) {
+                continue;
+            }
+            float lowerBound = this.getChamferDistanceToSources(index);
+            if (lowerBound <= reach && !this.unsettledTargets.get(index)) {
+                this.unsettledTargets.set(index);
+                this.noOfUnsettledTargets++;
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the search should stop as soon as all target cells have
+     * been settled.
+     * @return {@code TRUE} if the search is to be stopped early,
+     *         {@code FALSE} otherwise.
+     */
+    protected final boolean isEarlyTerminationSet() {
+        return this.doEarlyTermination;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the search is directed towards the target cells and
+     * therefore always stops as soon as all target cells have been settled,
+     * independent of {@link #setEarlyTermination(boolean)}.
+     * @return {@code TRUE} if the search is goal-directed, {@code FALSE}
+     *         otherwise.
+     */
+    protected boolean isGoalDirected() {
+        return false;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Labels a grid cell as settled, i.e. its distance can not be shortened
+     * anymore by the search.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     */
+    protected final void settle(final int index) {
+        if (this.unsettledTargets != null && this.unsettledTargets.get(index)) {
+            this.unsettledTargets.clear(index);
+            this.noOfUnsettledTargets--;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the flat indices of all target cells that have not been settled
+     * yet.
+     * @return BitSet object holding the flat indices of unsettled targets or
+     *         {@code NULL} if early termination is not set.
+     */
+    protected final BitSet getUnsettledTargets() {
+        return this.unsettledTargets;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether the search can be stopped, because early termination has
+     * been set or the search is goal-directed, all target cells have been
+     * settled and the search is known to succeed. If the search has not yet
+     * reached beyond the maximum distance, a depth-first probe is sent from
+     * the source cell outwards, which
+     * succeeds as soon as it steps on a cell whose distance on an empty grid
+     * is already larger than the maximum distance. In this case, the full
+     * search would have succeeded as well.
+     * @return {@code TRUE} if the search can be stopped, {@code FALSE}
+     *         otherwise.
+     */
+    protected final boolean isFinished() {
+        if ((!this.doEarlyTermination && !this.isGoalDirected())
+            ||
+            this.noOfUnsettledTargets > 0) {
+            return false;
+        }
+        if (!this.hasSucceeded && !this.hasProbedEscape) {
+            this.hasProbedEscape = true;
+            if (this.canEscape()) {
+                this.hasSucceeded = true;
+            }
+        }
+        return this.hasSucceeded;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Probes in a depth-first manner whether the source cells are connected
+     * via unoccupied cells to any cell that is farther away than the maximum
+     * distance from all of them. The probe follows the same neighbourhood
+     * rules as the search itself and always continues with the neighbour
+     * farthest away from the source cells, so that it escapes quickly into the
+     * bulk solvent.
+     * @return {@code TRUE} if the probe reached a cell beyond the maximum
+     *         distance, {@code FALSE} otherwise.
+     */
+    private boolean canEscape() {
+        Point3i noOfCells = this.grid.getNumberOfCells();
+        float cellSize = this.grid.getCellSize();
+        // small margin to be on the safe side of float rounding.
+        float limit = this.maxDist + cellSize / 100;
+
+        BitSet visited = new BitSet(this.grid.size());
+        int[] stack = new int[Math.max(64, 2 * this.sourceIndices.length)];
+        int stackSize = 0;
+        for (int sourceIndex : this.sourceIndices) {
+            stack[stackSize++] = sourceIndex;
+            visited.set(sourceIndex);
+        }
+
+        while (stackSize > 0) {
+            int index = stack[--stackSize];
+            int i = this.grid.getI(index);
+            int j = this.grid.getJ(index);
+            int k = this.grid.getK(index);
+            // cells on the lower grid border have no neighbours, see
+            // GridUtilities.getNeighbouringCells().
+            if (i == 0 || j == 0 || k == 0) {
+                continue;
+            }
+            int farthest = -1;
+            float farthestDist = -1;
+            for (int m = -1; m <= 1; m++) {
+                for (int n = -1; n <= 1; n++) {
+                    for (int o = -1; o <= 1; o++) {
+                        int neighbour = this.grid.getIndex(i + m,
+                                                           j + n,
+                                                           k + o);
+                        if (neighbour == -1
+                            ||
+                            visited.get(neighbour)
+                            ||
+                            this.grid.isOccupied(neighbour)) {
+                            continue;
+                        }
+                        visited.set(neighbour);
+                        float dist = this.getChamferDistanceToSources(
+                                                                     neighbour
+                                                                     );
+                        if (dist > limit) {
+                            return true;
+                        }
+                        if (stackSize + 1 >= stack.length) {
+                            int[] larger = new int[stack.length * 2];
+                            System.arraycopy(stack, 0, larger, 0, stackSize);
+                            stack = larger;
+                        }
+                        // keep the farthest neighbour on top of the stack.
+                        if (dist > farthestDist) {
+                            if (farthest != -1) {
+                                stack[stackSize++] = farthest;
+                            }
+                            farthest = neighbour;
+                            farthestDist = dist;
+                        } else {
+                            stack[stackSize++] = neighbour;
+                        }
+                    }
+                }
+            }
+            if (farthest != -1) {
+                stack[stackSize++] = farthest;
+            }
+        }
+        return false;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the length of the shortest path between two grid cells on an
+     * empty grid, where each cell is connected to its 26 neighbours. This
+     * length is a lower bound for the distance of both cells on any grid.
+     * @param di
+     *        - integer value representing the index difference on the X
+     *          dimension.
+     * @param dj
+     *        - integer value representing the index difference on the Y
+     *          dimension.
+     * @param dk
+     *        - integer value representing the index difference on the Z
+     *          dimension.
+     * @param cellSize
+     *        - float value representing the edge length of the grid cells.
+     * @return float value representing the length of the shortest path.
+     */
+    protected static float getChamferDistance(final int di,
+                                              final int dj,
+                                              final int dk,
+                                              final float cellSize) {
+        int a = Math.abs(di);
+        int b = Math.abs(dj);
+        int c = Math.abs(dk);
+        // sort such that a >= b >= c.
+        if (a < b) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (b < c) {
+            int tmp = b;
+            b = c;
+            c = tmp;
+        }
+        if (a < b) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        return (float) (((a - b) + Math.sqrt(2) * (b - c) + Math.sqrt(3) * c)
+                        * cellSize);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the length of the shortest path on an empty grid between a
+     * grid cell and its nearest source cell.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return float value representing the length of the shortest path.
+     * @see #getChamferDistance(int, int, int, float)
+     */
+    private float getChamferDistanceToSources(final int index) {
+        int i = this.grid.getI(index);
+        int j = this.grid.getJ(index);
+        int k = this.grid.getK(index);
+        float min = Float.MAX_VALUE;
+        for (int sourceIndex : this.sourceIndices) {
+            min = Math.min(min, ShortestPathSearch.getChamferDistance(
+                                                i - this.grid.getI(sourceIndex),
+                                                j - this.grid.getJ(sourceIndex),
+                                                k - this.grid.getK(sourceIndex),
+                                                this.grid.getCellSize()));
+        }
+        return min;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Backtraces the path starting between a target cell and its nearest
+     * source cell by
+     * following the predecessors that have been recorded during the search.
+     * The traced cells are stored as flat grid indices in the path.
+     * @param target
+     *        - Target grid cell, which represent the end point in the
+     *        distance calculation.
+     */
+    private void backtrackPath(final GridCell target) {
+        Point3i noOfCells = this.grid.getNumberOfCells();
+        int ny = noOfCells.getJ();
+        int nz = noOfCells.getK();
+        int index = target.getIndex();
+
+        int[] cells = new int[32];
+        float[] distances = new float[32];
+        int n = 0;
+        // a path can not be longer than the number of grid cells, which
+        // guards against an inconsistent predecessor chain.
+        while (!this.isSource(index) && n < this.grid.size()) {
+            int direction = this.grid.getPredecessor(index);
+            index += ((direction / 9 - 1) * ny + (direction / 3 % 3 - 1)) * nz
+                     + (direction % 3 - 1);
+            if (n == cells.length) {
+                int[] largerCells = new int[cells.length * 2];
+                System.arraycopy(cells, 0, largerCells, 0, n);
+                cells = largerCells;
+                float[] largerDistances = new float[distances.length * 2];
+                System.arraycopy(distances, 0, largerDistances, 0, n);
+                distances = largerDistances;
+            }
+            cells[n] = index;
+            distances[n] = this.grid.getDistance(index);
+            n++;
+        }
+        int[] tracedCells = new int[n];
+        System.arraycopy(cells, 0, tracedCells, 0, n);
+        float[] tracedDistances = new float[n];
+        System.arraycopy(distances, 0, tracedDistances, 0, n);
+        this.path.setTracedCells(tracedCells, tracedDistances, this.grid);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the grid in which the search is done.
+     * @return Grid object.
+     */
+    protected final Grid getGrid() {
+        return this.grid;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the source grid cell of the search.
+     * @return GridCell object.
+     */
+    protected final GridCell getSource() {
+        return this.source;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the flat indices of all source cells of the search.
+     * @return Array of integer values, starting with the index of the source
+     *         cell given to the constructor.
+     */
+    protected final int[] getSourceIndices() {
+        return this.sourceIndices;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether a grid cell is a source cell of the search.
+     * @param index
+     *        - integer value representing the flat index of the grid cell.
+     * @return {@code TRUE} if the grid cell is a source cell, {@code FALSE}
+     *         otherwise.
+     */
+    protected final boolean isSource(final int index) {
+        for (int sourceIndex : this.sourceIndices) {
+            if (sourceIndex == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the target grid cells of the search.
+     * @return List of GridCell objects.
+     */
+    protected final ArrayList < GridCell > getTargets() {
+        return this.targets;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the maximum distance to search for in the grid.
+     * @return float value representing the maximum distance.
+     */
+    protected final float getMaxDist() {
+        return this.maxDist;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Labels the search as successful, i.e. the distance assignment has
+     * reached beyond the maximum distance and the source cell is therefore not
+     * located within a closed cavity.
+     */
+    protected final void setSucceeded() {
+        // distances of a bounded search might be longer than the actual ones,
+        // so that only the probe tells about success.
+        if (!this.isBounded) {
+            this.hasSucceeded = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the search for a target was successful.
+     * @return {@code TRUE} if search found target cell, {@code FALSE}
+     * otherwise.
+     */
+    public final boolean hasSucceeded() {
+        return this.hasSucceeded;
+    }
+}
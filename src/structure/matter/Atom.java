@@ -323,6 +323,12 @@ public class Atom {
      * Potential that his atom experienced.
      */
     private float potential;
+    /**
+     * Compact integer id of this atom, which is shared by all atoms with the
+     * same residue name, residue number, chain ID and atom name within a PDB
+     * file, e.g. by alternative locations of an atom.
+     */
+    private int id;
     //--------------------------------------------------------------------------
     /**
      * Constructor sets all the fields to defaults (mainly 0 and "").
@@ -351,6 +357,7 @@ public class Atom {
         this.partialCharge = 0;
         this.potential = 0;
         this.hydrohobicEnvironmentScore = 0;
+        this.id = -1;
     }
     //--------------------------------------------------------------------------
     /**
@@ -383,6 +390,7 @@ public class Atom {
         atom.setElement(this.getElement());
         atom.setChargeState((new Integer(this.getChargeState())).intValue());
         atom.setRank(new Integer(this.getRank()).intValue());
+        atom.setId(this.getId());
         atom.setVanDerWaalsRadius(
                            new Float(this.getVanDerWaalsRadius()).floatValue()
                                  );
@@ -609,6 +617,28 @@ public class Atom {
         return this.rank;
     };
     //--------------------------------------------------------------------------
+    /**
+     * Sets the compact integer id of this atom.
+     * @param idValue
+     *        - integer number
+     * @see #getId()
+     */
+    public final void setId(final int idValue) {
+        this.id = idValue;
+    };
+    //--------------------------------------------------------------------------
+    /**
+     * Gets the compact integer id of this atom, which is assigned when reading
+     * in PDB files. Atoms with the same residue name, residue number, chain ID
+     * and atom name share the same id.
+     * @return integer representing the id of this atom or {@code -1} if no id
+     *         has been assigned.
+     * @see #setId(int)
+     */
+    public final int getId() {
+        return this.id;
+    };
+    //--------------------------------------------------------------------------
     /**
      * Sets the insertion code ID of residue to which the atom belongs.
      * @param iCode
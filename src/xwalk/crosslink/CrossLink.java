@@ -40,6 +40,17 @@ import xwalk.crosslink.CrossLinkParameter.Parameter;
  */
 public class CrossLink extends Bond {
 
+    //--------------------------------------------------------------------------
+    /**
+     * Solvent-Path distance of a cross-link for which no Solvent-Path distance
+     * has been calculated.
+     */
+    public static final float NO_SOLVENT_PATH_DISTANCE = -0.5f;
+    /**
+     * Largest deviation from {@link #NO_SOLVENT_PATH_DISTANCE} of a
+     * Solvent-Path distance that still counts as not calculated.
+     */
+    public static final float NO_SOLVENT_PATH_DISTANCE_RANGE = 0.4f;
     //--------------------------------------------------------------------------
     /**
      * Distance that the cross-link spans in sequence space.
@@ -53,9 +64,9 @@ public class CrossLink extends Bond {
     private float eucDist = -1.0f;
     /**
      * Distance that the cross-link spans in Solvent-Path distance space.
-     * Default value is -0.5.
+     * Default value is {@link #NO_SOLVENT_PATH_DISTANCE}.
      */
-    private float solventPathDistance = -0.5f;
+    private float solventPathDistance = NO_SOLVENT_PATH_DISTANCE;
 
     /**
      * Probability of finding a cross-link with this Euclidean distance in a
@@ -242,6 +253,22 @@ public class CrossLink extends Bond {
     }
     //--------------------------------------------------------------------------
 
+    /**
+     * Returns whether a Solvent-Path distance has been calculated for this
+     * cross-link, i.e. whether the distance deviates by more than
+     * {@link #NO_SOLVENT_PATH_DISTANCE_RANGE} from
+     * {@link #NO_SOLVENT_PATH_DISTANCE}.
+     * @return {@code TRUE} if a Solvent-Path distance has been calculated,
+     *         {@code FALSE} otherwise.
+     */
+    public final boolean hasSolventPathDistance() {
+        float dist = this.getSolventPathDistance();
+        return dist > NO_SOLVENT_PATH_DISTANCE + NO_SOLVENT_PATH_DISTANCE_RANGE
+               ||
+               dist < NO_SOLVENT_PATH_DISTANCE - NO_SOLVENT_PATH_DISTANCE_RANGE;
+    }
+    //--------------------------------------------------------------------------
+
     /**
      * Returns the probability of this cross-link to be observed with its
      * SAS distance in real experiments.
@@ -409,18 +436,14 @@ public class CrossLink extends Bond {
         output.append(this.filePath + "\t" + atomId1 + "\t" + atomId2 + "\t"
                     + this.seqDist + "\t"
                     + this.getEuclideanDistance() + "\t");
-        if (this.getSolventPathDistance() > -0.1
-                ||
-            this.getSolventPathDistance() < -0.9 ) {
+        if (this.hasSolventPathDistance()) {
             output.append(this.getSolventPathDistance() + "\t");
         } else {
             output.append("-\t");
         }
         if (this.doProbability) {
             output.append(this.getEuclideanDistanceProbability() + "\t");
-            if (this.getSolventPathDistance() > -0.1
-                    ||
-                this.getSolventPathDistance() < -0.9 ) {
+            if (this.hasSolventPathDistance()) {
                 output.append(this.getSolventPathDistanceProbability() + "\t");
             } else {
                 output.append("-\t");
@@ -435,10 +458,47 @@ public class CrossLink extends Bond {
         } else {
             output.append("-");
         }
+        output.append(this.getMaximumDistanceColumns());
         output.append(Constants.LINE_SEPERATOR);
     return output.toString();
     }
     //--------------------------------------------------------------------------
+    /**
+     * Returns for each maximum distance set with -max a tab separated
+     * column, which holds 1 if this cross-link conforms to the distance and 0
+     * otherwise. The Solvent-Path distance is used if it has been
+     * calculated, otherwise the Euclidean distance.
+     * @return String object holding the columns, which is empty if no more
+     *         than a single maximum distance has been set.
+     */
+    private String getMaximumDistanceColumns() {
+        float[] distances = CrossLinkParameter.getMaximumDistances();
+        if (distances.length == 0) {
+            return "";
+        }
+        float dist = this.getSolventPathDistance();
+        if (!this.hasSolventPathDistance()) {
+            dist = this.getEuclideanDistance();
+        }
+        float errorRange = 0;
+        if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                         Parameter.DO_BFACTOR
+                                                                ))) {
+            errorRange = Constants.getCoordinateUncertainty(this.preAtom)
+                         +
+                         Constants.getCoordinateUncertainty(this.postAtom);
+        }
+        StringBuffer output = new StringBuffer();
+        for (float distance : distances) {
+            if (dist >= 0 && dist <= distance + errorRange) {
+                output.append("\t1");
+            } else {
+                output.append("\t0");
+            }
+        }
+    return output.toString();
+    }
+    //--------------------------------------------------------------------------
     /**
      * Sets the path to the file in which this cross-link has been found.
      * @param fileName
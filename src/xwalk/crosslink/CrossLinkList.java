@@ -38,6 +38,13 @@ public class CrossLinkList extends ArrayList < CrossLink > {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Atoms of the residue of each cross-linked atom that fulfill all
+     * criteria set by the user on the commandline.
+     */
+    private Hashtable < Atom, AtomList > residueAtoms =
+                                             new Hashtable < Atom, AtomList >();
+
     //--------------------------------------------------------------------------
     /**
      * Constructor, which will use the DistanceComparator class for initiating
@@ -71,6 +78,30 @@ public class CrossLinkList extends ArrayList < CrossLink > {
         }
     }
     //--------------------------------------------------------------------------
+    /**
+     * Sets the atoms of the residue of each cross-linked atom, from which the
+     * cross-linked atom has been chosen.
+     * @param atoms
+     *        - Hashtable object holding for each cross-linked atom the list of
+     *          atoms of its residue.
+     */
+    public final void setResidueAtoms(
+                                   final Hashtable < Atom, AtomList > atoms) {
+        this.residueAtoms = atoms;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the atoms of the residue of a cross-linked atom, from which the
+     * cross-linked atom has been chosen.
+     * @param atom
+     *        - Atom object of a cross-link in this list.
+     * @return AtomList object or {@code NULL} if the residue atoms are not
+     *         known, e.g. for cross-links read from a distance file.
+     */
+    public final AtomList getResidueAtoms(final Atom atom) {
+        return this.residueAtoms.get(atom);
+    }
+    //--------------------------------------------------------------------------
     /**
      * Puts all cross-links in this list to a Hashtable.
      * @return Hashtable object.
@@ -94,6 +125,91 @@ public class CrossLinkList extends ArrayList < CrossLink > {
         return hash;
     }
     //--------------------------------------------------------------------------
+    /**
+     * Puts all cross-links in this list to a Hashtable, such that the number
+     * of keys is kept small. Each key is the source atom of a shortest path
+     * search to all atoms of its value list, so every key saves one search.
+     * <p>
+     * Source atoms are chosen by a greedy vertex cover on the graph of
+     * cross-linked atoms: the atom that takes part in most of the yet
+     * uncovered cross-links becomes the next source, until all cross-links
+     * are covered. As each search spans a grid of the same size around its
+     * source atom, all searches are estimated to cost the same, and the
+     * number of covered cross-links alone decides. Ties are broken by the
+     * first appearance of the atoms in this list.
+     * </p>
+     * <p>
+     * Unlike {@link #toHash()}, the grouping may pair an atom with another
+     * source, which changes the atoms that are excluded from its search grid.
+     * Distances may therefore differ slightly from those of {@link #toHash()}.
+     * </p>
+     * @return Hashtable object.
+     */
+    public final Hashtable < Atom, AtomList > toSourceHash() {
+        // number all atoms by their first appearance in this list.
+        Hashtable < Atom, Integer > numbers = new Hashtable < Atom, Integer >();
+        ArrayList < Atom > atoms = new ArrayList < Atom >();
+        int[][] ends = new int[this.size()][2];
+        for (int c = 0; c < this.size(); c++) {
+            Atom[] pair = new Atom[] {this.get(c).getPreAtom(),
+                                      this.get(c).getPostAtom()};
+            for (int e = 0; e < pair.length; e++) {
+                Integer number = numbers.get(pair[e]);
+                if (number == null) {
+                    number = atoms.size();
+                    numbers.put(pair[e], number);
+                    atoms.add(pair[e]);
+                }
+                ends[c][e] = number;
+            }
+        }
+
+        // list the cross-links each atom takes part in.
+        int[] degrees = new int[atoms.size()];
+        for (int[] end : ends) {
+            degrees[end[0]]++;
+            degrees[end[1]]++;
+        }
+        int[][] incident = new int[atoms.size()][];
+        for (int a = 0; a < atoms.size(); a++) {
+            incident[a] = new int[degrees[a]];
+            degrees[a] = 0;
+        }
+        for (int c = 0; c < ends.length; c++) {
+            incident[ends[c][0]][degrees[ends[c][0]]++] = c;
+            incident[ends[c][1]][degrees[ends[c][1]]++] = c;
+        }
+
+        Hashtable < Atom, AtomList > hash = new Hashtable < Atom, AtomList >();
+        boolean[] covered = new boolean[ends.length];
+        while (true) {
+            int source = -1;
+            for (int a = 0; a < degrees.length; a++) {
+                if (degrees[a] > 0
+                    &&
+                    (source == -1 || degrees[a] > degrees[source])) {
+                    source = a;
+                }
+            }
+            if (source == -1) {
+                break;
+            }
+            AtomList paired = new AtomList();
+            for (int c : incident[source]) {
+                if (!covered[c]) {
+                    int partner = ends[c][0] == source ? ends[c][1]
+                                                       : ends[c][0];
+                    covered[c] = true;
+                    degrees[source]--;
+                    degrees[partner]--;
+                    paired.add(atoms.get(partner));
+                }
+            }
+            hash.put(atoms.get(source), paired);
+        }
+        return hash;
+    }
+    //--------------------------------------------------------------------------
     /**
      * Returns the cross-link which contains both atoms.
      * @param atom1
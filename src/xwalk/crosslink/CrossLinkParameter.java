@@ -41,6 +41,12 @@ public class CrossLinkParameter {
      */
     private static Hashtable < Parameter, String > param =
                                           new Hashtable < Parameter, String >();
+    /**
+     * Maximum distances of the MAXIMUM_DISTANCES parameter, which are parsed
+     * only once when the parameter is set as each cross-link is classified
+     * against them.
+     */
+    private static float[] maximumDistances = new float[0];
     //--------------------------------------------------------------------------
     /**
      * Supported cross-link parameters, that effect the behavior of the Xwalk
@@ -70,13 +76,23 @@ public class CrossLinkParameter {
                             DO_PROBABILITY,
                             DO_SOLVENT_PATH_DISTANCE,
                             DO_BFACTOR,
+                            DO_EARLY_TERMINATION,
+                            DO_COMPLEX_RASTER,
+                            DO_LINE_OF_SIGHT,
+                            DO_PATH_SMOOTHING,
+                            DO_OFF_HEAP_GRIDS,
+                            DO_RESIDUE_DISTANCE,
+                            DO_SOURCE_COVER,
                             DO_PYMOL_OUTPUT,
                             INFILE_PATH,
                             IS_HOMOMERIC,
                             GRID_CELL_SIZE,
                             MAXIMUM_DISTANCE,
+                            MAXIMUM_DISTANCES,
                             MINIMUM_SOLVENT_ACCESSIBILITY_RATIO,
+                            NUMBER_OF_THREADS,
                             OUTFILE_PATH,
+                            SHORTEST_PATH_ALGORITHM,
                             SOLVENT_RADIUS,
     };
     //--------------------------------------------------------------------------
@@ -118,6 +134,8 @@ public class CrossLinkParameter {
                                                arg.isProbabilityArgumentSet()));
         this.setParameter(Parameter.GRID_CELL_SIZE, Double.toString(
                                                 arg.getGridCellSizeArgument()));
+        this.setParameter(Parameter.SHORTEST_PATH_ALGORITHM,
+                          arg.getShortestPathAlgorithmArgument().toString());
         this.setParameter(Parameter.INFILE_PATH, arg.getInfileArgument());
         this.setParameter(Parameter.DO_BACKBONE_READ, Boolean.toString(
                                               arg.isBackboneOnlyArgumentSet()));
@@ -132,6 +150,8 @@ public class CrossLinkParameter {
                                                          arg.isHomomericSet()));
         this.setParameter(Parameter.MAXIMUM_DISTANCE, Double.toString(
                                              arg.getMaximumDistanceArgument()));
+        this.setParameter(Parameter.MAXIMUM_DISTANCES,
+                          arg.getMaximumDistancesArgument());
         this.setParameter(Parameter.SOLVENT_RADIUS, Double.toString(
                                                arg.getSolventRadiusArgument()));
         this.setParameter(Parameter.DO_FORCE_OUTPUT, Boolean.toString(
@@ -146,6 +166,22 @@ public class CrossLinkParameter {
                                                     arg.isExpasyArgumentSet()));
         this.setParameter(Parameter.DO_BFACTOR, Boolean.toString(
                                                    arg.isBfactorArgumentSet()));
+        this.setParameter(Parameter.DO_EARLY_TERMINATION, Boolean.toString(
+                                                  arg.isEarlyTerminationSet()));
+        this.setParameter(Parameter.DO_COMPLEX_RASTER, Boolean.toString(
+                                                   arg.isComplexRasterSet()));
+        this.setParameter(Parameter.DO_LINE_OF_SIGHT, Boolean.toString(
+                                                     arg.isLineOfSightSet()));
+        this.setParameter(Parameter.DO_PATH_SMOOTHING, Boolean.toString(
+                                                   arg.isPathSmoothingSet()));
+        this.setParameter(Parameter.DO_OFF_HEAP_GRIDS, Boolean.toString(
+                                                        arg.isOffHeapSet()));
+        this.setParameter(Parameter.DO_RESIDUE_DISTANCE, Boolean.toString(
+                                                arg.isResidueDistanceSet()));
+        this.setParameter(Parameter.DO_SOURCE_COVER, Boolean.toString(
+                                                    arg.isSourceCoverSet()));
+        this.setParameter(Parameter.NUMBER_OF_THREADS, Integer.toString(
+                                             arg.getNumberOfThreadsArgument()));
         try {
             ParameterReader.setParameterReader(ParameterSets.SURFNET);
             ParameterReader.setParameterReader(ParameterSets.XLOGP);
@@ -171,6 +207,16 @@ public class CrossLinkParameter {
     public final void setParameter(final Parameter xlParameter,
                                    final String xlValue) {
         param.put(xlParameter, xlValue);
+        if (xlParameter == Parameter.MAXIMUM_DISTANCES) {
+            maximumDistances = new float[0];
+            if (xlValue != null && !xlValue.equals("")) {
+                String[] values = xlValue.split("#");
+                maximumDistances = new float[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    maximumDistances[i] = Float.parseFloat(values[i]);
+                }
+            }
+        }
     }
     //--------------------------------------------------------------------------
     /**
@@ -184,6 +230,17 @@ public class CrossLinkParameter {
         return param.get(parameter);
     }
     //--------------------------------------------------------------------------
+    /**
+     * Returns the maximum distances of all cross-linkers against which each
+     * cross-link is classified.
+     * @return Array of float values, which is empty if no more than a single
+     *         maximum distance has been set.
+     * @see Parameter#MAXIMUM_DISTANCES
+     */
+    public static final float[] getMaximumDistances() {
+        return maximumDistances;
+    }
+    //--------------------------------------------------------------------------
     /**
      * Outputs all param via the STDERR stream to the terminal.
      */
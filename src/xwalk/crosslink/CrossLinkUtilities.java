@@ -21,17 +21,21 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.DataFormatException;
 
 import structure.constants.Constants;
 import structure.exceptions.FileFormatException;
+import structure.grid.AtomCellList;
 import structure.grid.AtomGrid;
-import structure.grid.GridCell;
 import structure.grid.GridUtilities;
 import structure.grid.Path;
+import structure.grid.SolventLabelling;
 import structure.io.pdb.PDBreader;
 import structure.math.Mathematics;
-import structure.math.algorithms.BreadthFirstSearch;
 import structure.matter.Atom;
 import structure.matter.AtomList;
 import structure.matter.MatterUtilities;
@@ -224,6 +228,25 @@ public final class CrossLinkUtilities {
             // This number is purely random.
             float maxDist = xwalk.constants.Constants.CROSS_LINKER_END_SIZE;
 
+            // local grids only need atoms that overlap them. Add one grid
+            // cell as the number of grid cells is rounded.
+            AtomCellList cellList = new AtomCellList(
+                                          complex.getAllAtoms(),
+                                          Constants.DEFAULT_CELL_LIST_BIN_SIZE);
+            float cullDist = maxDist + 1 + gridCellSize;
+
+            // in raster mode, accessibility is looked up in the labelling of a
+            // single grid on the whole complex.
+            SolventLabelling labelling = null;
+            if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                   Parameter.DO_COMPLEX_RASTER
+                                                                    ))) {
+                labelling = new SolventLabelling(new AtomGrid(
+                                                         complex.getAllAtoms(),
+                                                         gridCellSize,
+                                                         cullDist));
+            }
+
             MonoLinkList monoLinkList = new MonoLinkList();
 
             if (distMlList != null) {
@@ -244,10 +267,19 @@ public final class CrossLinkUtilities {
                             // if a candidate has already been found to be
                             // solvent accessible than stop here and continue
                             // with next mono link.
-                            if (!monoLink.isSolventAccessible()) {
+                            if (!monoLink.isSolventAccessible()
+                                &&
+                                labelling != null) {
+                                monoLink.set(monoLinkAtom);
+                                monoLink.setSolventAccessibility(
+                                              labelling.isAccessible(monoLink));
+                            } else if (!monoLink.isSolventAccessible()) {
                                 monoLink.set(monoLinkAtom);
+                                AtomList localAtoms = cellList.getAtoms(
+                                                                      monoLink,
+                                                                      cullDist);
                                 AtomGrid grid = new AtomGrid(
-                                                          complex.getAllAtoms(),
+                                                          localAtoms,
                                                           monoLink,
                                                           maxDist,
                                                           gridCellSize);
@@ -290,13 +322,20 @@ public final class CrossLinkUtilities {
                     MonoLink monoLink = new MonoLink();
                     monoLink.set(atom);
 
-                    AtomGrid grid = new AtomGrid(complex.getAllAtoms(),
-                                                 monoLink,
-                                                 maxDist,
-                                                 gridCellSize);
-                    monoLink.setSolventAccessibility(
-                                      GridUtilities.isAccessible(monoLink,
-                                                                 grid));
+                    if (labelling != null) {
+                        monoLink.setSolventAccessibility(
+                                              labelling.isAccessible(monoLink));
+                    } else {
+                        AtomGrid grid = new AtomGrid(
+                                                cellList.getAtoms(monoLink,
+                                                                  cullDist),
+                                                monoLink,
+                                                maxDist,
+                                                gridCellSize);
+                        monoLink.setSolventAccessibility(
+                                          GridUtilities.isAccessible(monoLink,
+                                                                     grid));
+                    }
                     if (monoLink.isSolventAccessible()) {
                         monoLink.setFileName(complex.getName());
                         monoLinkList.add(monoLink);
@@ -370,11 +409,15 @@ public final class CrossLinkUtilities {
                                             throws IOException {
         Hashtable < Atom, AtomList > relevantAtomPairs =
             new Hashtable < Atom, AtomList >();
+        Hashtable < Atom, AtomList > residueAtoms =
+            new Hashtable < Atom, AtomList >();
 
         if (distanceFileCrossLinks == null) {
             // find all atom pairs in the complex that fulfill the user set
             // criteria and have a Euclidean distance < max.
-            relevantAtomPairs = CrossLinkUtilities.findRelevantPairs(complex);
+            relevantAtomPairs = CrossLinkUtilities.findRelevantPairs(
+                                                                  complex,
+                                                                  residueAtoms);
         } else {
             relevantAtomPairs = CrossLinkUtilities.extractRelevantPairs(
                                                         complex,
@@ -384,6 +427,7 @@ public final class CrossLinkUtilities {
 
         // create CrossLinks object from all relevant atom pairs.
         CrossLinkList crossLinks = new CrossLinkList();
+        crossLinks.setResidueAtoms(residueAtoms);
         for (Atom atom1 : relevantAtomPairs.keySet()) {
             PolyPeptide atom1TrypticPeptide = null;
             for (Atom atom2 : relevantAtomPairs.get(atom1)) {
@@ -700,10 +744,14 @@ public final class CrossLinkUtilities {
      * then the user set maxDist.
      * @param complex -
      *        Protein complex object.
+     * @param residueAtoms
+     *        - Hashtable to which the atoms of the residue of each paired atom
+     *          are added, that conform to the user set identifiers.
      * @return Hashtable of atom pairs that conform to the user set identifiers.
      */
     private static Hashtable < Atom, AtomList > findRelevantPairs(
-                                             final PolyPeptideList complex
+                              final PolyPeptideList complex,
+                              final Hashtable < Atom, AtomList > residueAtoms
                                                                  ) {
         ArrayList <TreeSet < AtomList >> relevantAtoms =
                                        new ArrayList < TreeSet <AtomList >>();
@@ -713,7 +761,8 @@ public final class CrossLinkUtilities {
         Hashtable < Atom, AtomList > pairs =
                     CrossLinkUtilities.createPairsBetweenRelevantAtoms(
                                                            relevantAtoms.get(0),
-                                                           relevantAtoms.get(1)
+                                                           relevantAtoms.get(1),
+                                                           residueAtoms
                                                                       );
 
         pairs = CrossLinkUtilities.fixIntraInterSelection(pairs);
@@ -1439,11 +1488,15 @@ public final class CrossLinkUtilities {
      * @param candidates2
      *        - Set of AtomList objects that fulfill all criteria set by the
      *          user on the commandline for the second cross-linked atoms.
+     * @param residueAtoms
+     *        - Hashtable to which for each paired atom the AtomList object of
+     *          its residue is added, from which the atom has been chosen.
      * @return Hashtable of potential cross-linkable atoms.
      */
     private static Hashtable < Atom, AtomList > createPairsBetweenRelevantAtoms(
-                                       final TreeSet < AtomList > candidates1,
-                                       final TreeSet < AtomList > candidates2) {
+                              final TreeSet < AtomList > candidates1,
+                              final TreeSet < AtomList > candidates2,
+                              final Hashtable < Atom, AtomList > residueAtoms) {
         Hashtable < Atom, AtomList > pairs = new Hashtable < Atom, AtomList >();
         for (AtomList list1 : candidates1) {
             for (AtomList list2 : candidates2) {
@@ -1484,6 +1537,12 @@ public final class CrossLinkUtilities {
                         // conforms to the length of the cross-linker.
                         Atom atom0 = minimumDistanceAtomPair.get(0);
                         Atom atom1 = minimumDistanceAtomPair.get(1);
+                        if (!residueAtoms.containsKey(atom0)) {
+                            residueAtoms.put(atom0, list1);
+                        }
+                        if (!residueAtoms.containsKey(atom1)) {
+                            residueAtoms.put(atom1, list2);
+                        }
                         AtomList associate0 = pairs.get(atom0);
                         AtomList associate1 = pairs.get(atom1);
                         if (associate0 == null && associate1 == null) {
@@ -1664,6 +1723,53 @@ public final class CrossLinkUtilities {
     }
     //--------------------------------------------------------------------------
 
+    /**
+     * Returns a single cross-link for each pair of cross-linked residues,
+     * which connects the first atoms of both residues. Residues are
+     * distinguished by the atoms that fulfill the criteria for each side of
+     * a cross-link, so that the same amino acid might appear as two residues.
+     * @param crossLinks
+     *        - List of CrossLink objects, which know the atoms of the residues
+     *          of their cross-linked atoms.
+     * @param members
+     *        - Hashtable to which for each returned cross-link all cross-links
+     *          between the same pair of residues are added.
+     * @return List of CrossLink objects, which know the atoms of the residues
+     *         of their cross-linked atoms, or {@code NULL} if the atoms of any
+     *         residue are not known.
+     */
+    private static CrossLinkList getResidueCrossLinks(
+                        final CrossLinkList crossLinks,
+                        final Hashtable < CrossLink, CrossLinkList > members) {
+        CrossLinkList residueCrossLinks = new CrossLinkList();
+        Hashtable < Atom, AtomList > residueAtoms =
+                                             new Hashtable < Atom, AtomList >();
+        for (CrossLink crossLink : crossLinks) {
+            AtomList preAtoms = crossLinks.getResidueAtoms(
+                                                        crossLink.getPreAtom());
+            AtomList postAtoms = crossLinks.getResidueAtoms(
+                                                       crossLink.getPostAtom());
+            if (preAtoms == null || postAtoms == null) {
+                return null;
+            }
+            residueAtoms.put(preAtoms.get(0), preAtoms);
+            residueAtoms.put(postAtoms.get(0), postAtoms);
+            CrossLink residueCrossLink = residueCrossLinks.get(
+                                                             preAtoms.get(0),
+                                                             postAtoms.get(0));
+            if (residueCrossLink == null) {
+                residueCrossLink = new CrossLink(preAtoms.get(0),
+                                                 postAtoms.get(0));
+                residueCrossLinks.add(residueCrossLink);
+                members.put(residueCrossLink, new CrossLinkList());
+            }
+            members.get(residueCrossLink).add(crossLink);
+        }
+        residueCrossLinks.setResidueAtoms(residueAtoms);
+        return residueCrossLinks;
+    }
+    //--------------------------------------------------------------------------
+
     /**
      * Creates CrossLink objects between potential cross-linkable atom pairs
      * that are closer than the user set maximum distance. The cross-links
@@ -1679,10 +1785,6 @@ public final class CrossLinkUtilities {
                                final CrossLinkList crossLinksByEuclideanDistance
                                                           ) {
 
-        float gridCellSize = Float.parseFloat(CrossLinkParameter.getParameter(
-                                                        Parameter.GRID_CELL_SIZE
-                                                                       ));
-
         float maxDist = Float.parseFloat(CrossLinkParameter.getParameter(
                                                       Parameter.MAXIMUM_DISTANCE
                                                                         ));
@@ -1698,56 +1800,186 @@ public final class CrossLinkUtilities {
                                                                           );
         }
 
-        Hashtable <Atom, AtomList> pairs =
-                                         crossLinksByEuclideanDistance.toHash();
+        // with residue distances, a single search is done from each residue
+        // rather than from each of its atoms.
+        CrossLinkList sourceCrossLinks = crossLinksByEuclideanDistance;
+        Hashtable < CrossLink, CrossLinkList > residueMembers = null;
+        if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                   Parameter.DO_RESIDUE_DISTANCE
+                                                                ))) {
+            residueMembers = new Hashtable < CrossLink, CrossLinkList >();
+            sourceCrossLinks = CrossLinkUtilities.getResidueCrossLinks(
+                                                  crossLinksByEuclideanDistance,
+                                                  residueMembers);
+            if (sourceCrossLinks == null) {
+                System.err.println("WARNING: Residue atoms of cross-links are "
+                                 + "unknown. Solvent-Path distances will be "
+                                 + "calculated between atoms.");
+                sourceCrossLinks = crossLinksByEuclideanDistance;
+                residueMembers = null;
+            }
+        }
+
+        // optionally choose as few source atoms as possible to cover all
+        // cross-links. As each search excludes all cross-linked atoms of its
+        // source from the grid, distances depend on the grouping, hence the
+        // default grouping is kept unless requested otherwise.
+        Hashtable <Atom, AtomList> pairs;
+        if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                       Parameter.DO_SOURCE_COVER
+                                                                ))) {
+            pairs = sourceCrossLinks.toSourceHash();
+        } else {
+            pairs = sourceCrossLinks.toHash();
+        }
 
-        for (Atom atom : pairs.keySet()) {
-            AtomList pairedAtoms = pairs.get(atom);
+        // collect source atoms in the order of their first appearance in the
+        // cross-link list, so that results are merged deterministically.
+        ArrayList < Atom > sources = new ArrayList < Atom >();
+        HashSet < Atom > seen = new HashSet < Atom >();
+        for (CrossLink crossLink : sourceCrossLinks) {
+            Atom[] atoms = new Atom[] {crossLink.getPreAtom(),
+                                       crossLink.getPostAtom()};
+            for (Atom atom : atoms) {
+                if (pairs.containsKey(atom) && !seen.contains(atom)) {
+                    seen.add(atom);
+                    sources.add(atom);
+                }
+            }
+        }
 
-            String pairedAminoAcidId = "#" + AminoAcid.getAminoAcidId(atom)
-                                           + atom.getName() + "#";
-            for (Atom pairedAtom : pairedAtoms) {
-                pairedAminoAcidId += "#" + AminoAcid.getAminoAcidId(pairedAtom)
-                                         + pairedAtom.getName() + "#";
+        AtomList complexAtoms = complex.getAllAtoms();
+        AtomGrid complexGrid = null;
+        SolventLabelling labelling = null;
+        AtomCellList complexCellList = null;
+        if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                   Parameter.DO_COMPLEX_RASTER
+                                                                ))) {
+            float gridCellSize = Float.parseFloat(
+                                             CrossLinkParameter.getParameter(
+                                                        Parameter.GRID_CELL_SIZE
+                                                                            ));
+            // the grid must hold the local grids around all atoms.
+            complexGrid = new AtomGrid(complexAtoms,
+                                       gridCellSize,
+                                       maxDist + 1 + gridCellSize);
+            // label bulk solvent and enclosed cavities once for all tasks.
+            labelling = new SolventLabelling(complexGrid);
+            if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                     Parameter.DO_VERBOSE_OUTPUT
+                                                                    ))) {
+                System.err.println("Number of enclosed cavities: "
+                                 + labelling.getNumberOfCavities());
             }
-            AtomList nonXLedAtoms = new AtomList();
-            for (Atom complexAtom : complex.getAllAtoms()) {
-                String complexAminoAcidId = "#" + AminoAcid.getAminoAcidId(
-                                                                     complexAtom
-                                                                          )
-                                                + complexAtom.getName() + "#";
-                if (pairedAminoAcidId.indexOf(complexAminoAcidId) == -1) {
-                    nonXLedAtoms.add(complexAtom);
+        } else {
+            complexCellList = new AtomCellList(
+                                      complexAtoms,
+                                      Constants.DEFAULT_CELL_LIST_BIN_SIZE);
+        }
+        ArrayList < SolventPathDistanceTask > tasks =
+                                   new ArrayList < SolventPathDistanceTask >();
+        for (Atom atom : sources) {
+            SolventPathDistanceTask task;
+            if (complexGrid != null) {
+                task = new SolventPathDistanceTask(atom,
+                                                   pairs.get(atom),
+                                                   complexGrid,
+                                                   labelling);
+            } else {
+                task = new SolventPathDistanceTask(atom,
+                                                   pairs.get(atom),
+                                                   complexCellList);
+            }
+            if (residueMembers != null) {
+                ArrayList < AtomList > pairedResidueAtoms =
+                                                 new ArrayList < AtomList >();
+                for (Atom pairedAtom : pairs.get(atom)) {
+                    pairedResidueAtoms.add(sourceCrossLinks.getResidueAtoms(
+                                                                    pairedAtom
+                                                                           ));
                 }
+                task.setResidueAtoms(sourceCrossLinks.getResidueAtoms(atom),
+                                     pairedResidueAtoms);
             }
+            tasks.add(task);
+        }
 
-            AtomGrid grid = new AtomGrid(nonXLedAtoms,
-                                         atom,
-                                         maxDist,
-                                         gridCellSize);
+        int noOfThreads = Integer.parseInt(CrossLinkParameter.getParameter(
+                                                     Parameter.NUMBER_OF_THREADS
+                                                                          ));
+        ArrayList < ArrayList < Path > > results =
+                                      new ArrayList < ArrayList < Path > >();
+        if (noOfThreads > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                                     noOfThreads,
+                                     SolventPathDistanceTask.getThreadFactory()
+                                                                   );
+            try {
+                ArrayList < Future < ArrayList < Path > > > futures =
+                             new ArrayList < Future < ArrayList < Path > > >();
+                for (SolventPathDistanceTask task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+                for (Future < ArrayList < Path > > future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
 
-            ArrayList <Path> paths =
-                CrossLinkUtilities.calculateShortestPathThroughSolvent(
-                                                                     grid,
-                                                                     atom,
-                                                                     pairedAtoms
-                                                                      );
-            if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
-                                                      Parameter.DO_GRID_OUTPUT))
-                                                           ) {
+        boolean doGridOutput = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                        Parameter.DO_GRID_OUTPUT
+                                                                             ));
+        boolean doBfactor = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                            Parameter.DO_BFACTOR
+                                                                             ));
+        boolean doProbability = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                        Parameter.DO_PROBABILITY
+                                                                             ));
+        boolean doVerbose = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                     Parameter.DO_VERBOSE_OUTPUT
+                                                                             ));
+        int noOfLineOfSightPairs = 0;
+        int noOfPairs = 0;
+        for (int t = 0; t < tasks.size(); t++) {
+            SolventPathDistanceTask task = tasks.get(t);
+            Atom atom = task.getAtom();
+            AtomList pairedAtoms = task.getPairedAtoms();
+
+            ArrayList <Path> paths;
+            if (noOfThreads > 1) {
+                paths = results.get(t);
+                // release results as soon as they are merged.
+                results.set(t, null);
+            } else {
+                paths = task.call();
+            }
+            noOfLineOfSightPairs += task.getNumberOfLineOfSightPairs();
+            noOfPairs += pairedAtoms.size();
+            if (doGridOutput) {
                 System.out.println("HEADER " + atom.getResidueName().trim()
                                        + "-" + atom.getResidueNumber()
                                        + "-" + atom.getChainId()
                                        + "-" + atom.getName().trim()
                                  + Constants.LINE_SEPERATOR
-                                 + grid.toString()
+                                 + task.getGridString()
                                  + "TER");
             }
             for (int i = 0; i < pairedAtoms.size(); i++) {
-                CrossLink crossLink = crossLinksByEuclideanDistance.get(
+                CrossLink sourceCrossLink = sourceCrossLinks.get(
                                                               atom,
                                                               pairedAtoms.get(i)
-                                                                       );
+                                                                );
                 // if the paths contain any grid cell, it means that a SASD path
                 // could be calculation. If the paths are empty, it means
                 // that the path calculation had to be stopped prematurely due
@@ -1761,59 +1993,72 @@ public final class CrossLinkUtilities {
                     dist = Float.MAX_VALUE;
                 }
 
-                maxDist = Float.parseFloat(CrossLinkParameter.getParameter(
-                                                      Parameter.MAXIMUM_DISTANCE
-                                                                 ));
-                float errorRange = 0;
-                if (Boolean.parseBoolean(
-                       CrossLinkParameter.getParameter(Parameter.DO_BFACTOR))) {
-                    errorRange += Constants.getCoordinateUncertainty(atom)
-                                  +
-                                  Constants.getCoordinateUncertainty(
-                                                            pairedAtoms.get(i));
+                // with residue distances, the distance between both residues
+                // is assigned to all cross-links between them.
+                CrossLinkList pairCrossLinks = new CrossLinkList();
+                if (residueMembers == null) {
+                    pairCrossLinks.add(sourceCrossLink);
+                } else {
+                    pairCrossLinks = residueMembers.get(sourceCrossLink);
                 }
+                for (CrossLink crossLink : pairCrossLinks) {
+                    float errorRange = 0;
+                    if (doBfactor) {
+                        errorRange += Constants.getCoordinateUncertainty(
+                                                         crossLink.getPreAtom())
+                                      +
+                                      Constants.getCoordinateUncertainty(
+                                                       crossLink.getPostAtom());
+                    }
 
-                // Conforming distance found!
-                if (dist <= maxDist + errorRange) {
-                    // for very short distances, the SASD can be shorter than
-                    // the Euclidean distance due to the grid-ification of
-                    // distance space. In such cases, set the SASD to the
-                    // Euclidean distance.
-                    if (dist < crossLink.getEuclideanDistance() && dist > 0) {
-                        crossLink.setSolventPathDistance(
+                    // Conforming distance found!
+                    if (dist <= maxDist + errorRange) {
+                        // for very short distances, the SASD can be shorter
+                        // than the Euclidean distance due to the
+                        // grid-ification of distance space. In such cases, set
+                        // the SASD to the Euclidean distance.
+                        if (dist < crossLink.getEuclideanDistance()
+                            &&
+                            dist > 0) {
+                            crossLink.setSolventPathDistance(
                                                 crossLink.getEuclideanDistance()
-                                                        );
-                    } else {
-                        crossLink.setSolventPathDistance(dist);
-                    }
-                    crossLink.setPath(paths.get(i));
+                                                            );
+                        } else {
+                            crossLink.setSolventPathDistance(dist);
+                        }
+                        crossLink.setPath(paths.get(i));
 
-                    if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
-                                                        Parameter.DO_PROBABILITY
-                                                                   ))) {
-                        crossLink.setSASDprobability();
-                    }
-                } else {
-                    // if its not due to solvent inaccessibility, than the
-                    // distance is simply to large
-                    if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
-                                                    Parameter.DO_VERBOSE_OUTPUT)
-                                                             )) {
-                        System.err.println("Following XL exceed the maximum "
-                                         + "distance of "
-                                         + (maxDist + errorRange)
-                                         + " with a distance of " + dist
-                                         + Constants.LINE_SEPERATOR
-                                         + crossLink);
-                    }
-                    crossLink.setSolventPathDistance(
+                        if (doProbability) {
+                            crossLink.setSASDprobability();
+                        }
+                    } else {
+                        // if its not due to solvent inaccessibility, than the
+                        // distance is simply to large
+                        if (doVerbose) {
+                            System.err.println("Following XL exceed the "
+                                             + "maximum distance of "
+                                             + (maxDist + errorRange)
+                                             + " with a distance of " + dist
+                                             + Constants.LINE_SEPERATOR
+                                             + crossLink);
+                        }
+                        crossLink.setSolventPathDistance(
                              xwalk.constants.Constants.NON_CONFORMING_CROSS_LINK
-                                                    );
+                                                        );
+                    }
                 }
             }
-            // run garbage collector to free up space in particular from
-            // AtomGrid object from the previous run.
-            System.gc();
+        }
+        if (noOfThreads <= 1) {
+            SolventPathDistanceTask.releaseThreadStorage();
+        }
+        if (Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                    Parameter.DO_LINE_OF_SIGHT
+                                                                ))) {
+            System.err.println("Line of sight: " + noOfLineOfSightPairs
+                             + " of " + noOfPairs + " Solvent-Path-Distance "
+                             + "calculations were answered without a search "
+                             + "on the grid.");
         }
         //---------------------------------
         // sort list of cross-links by SASD.
@@ -1865,130 +2110,6 @@ public final class CrossLinkUtilities {
     }
     */
     //--------------------------------------------------------------------------
-    /**
-     * Calculates solvent path distances using a local grid.
-     * @param grid
-     *      - Local AtomGrid object build around one potential cross-linkable
-     *        atom.
-     * @param atom1
-     *        - First protein atom to be connected by the virtual cross-linker.
-     * @param atoms2
-     *        - List of atoms to be cross-linked to atom1, if distance is
-     *          shorter than maxDist.
-     * @return List of Path objects that form the shortest path between atom1
-     *         and atom2 objects. Those paths that exceed -max with their length
-     *         have only a single grid cell stored, namely the grid cell of the
-     *         target cell.
-     */
-    private static ArrayList < Path > calculateShortestPathThroughSolvent(
-                                              final AtomGrid grid,
-                                              final Atom atom1,
-                                              final AtomList atoms2
-                                                            ) {
-        // as soon as one of atom2 is solvent accessible calculate
-        // shortest path.
-        SolventPathDistance solvDist  = new SolventPathDistance(
-                                                               atom1,
-                                                               atoms2,
-                                                               grid);
-        // check which atoms are accessible
-        ArrayList < Path > paths  = new ArrayList < Path >();
-        boolean atom1isAccessible = false;
-        if (GridUtilities.isAccessible(atom1, grid)) {
-            atom1isAccessible = true;
-        }
-        boolean[] atoms2areAccessible = new boolean[atoms2.size()];
-        boolean atom2isAccessible = false;
-        for (int i = 0; i < atoms2.size(); i++) {
-            if (GridUtilities.isAccessible(atoms2.get(i), grid)) {
-                atoms2areAccessible[i] = true;
-                atom2isAccessible = true;
-            }
-        }
-        // only continue if atom1 is accessible
-        if (atom1isAccessible && atom2isAccessible) {
-            paths = solvDist.getShortestPath(
-                                       Float.parseFloat(
-                                               CrossLinkParameter.getParameter(
-                                                      Parameter.MAXIMUM_DISTANCE
-                                       )));
-        }
-        boolean successful = paths.size() == 0 ? false : true;
-        for (int i = 0; i < atoms2.size(); i++) {
-            // if distance calculations were performed but an empty path array
-            // was returned, than the first atom is buried.
-            if (atom1isAccessible && atom2isAccessible && !successful) {
-                Path path = new Path();
-                GridCell dummy = new GridCell(atom1.getXYZ(),
-                                              GridCell.getSize());
-                dummy.setDistance(
-                              xwalk.constants.Constants.FIRST_ATOM_IS_BURIED
-                                 );
-                path.add(dummy);
-                paths.add(i, path);
-            } else if (!atom1isAccessible && atoms2areAccessible[i]) {
-                Path path = new Path();
-                GridCell dummy = new GridCell(atom1.getXYZ(),
-                                              GridCell.getSize());
-                dummy.setDistance(
-                    xwalk.constants.Constants.FIRST_ATOM_IS_SOLVENT_INACCESSIBLE
-                                 );
-                path.add(dummy);
-                paths.add(i, path);
-            } else if (atom1isAccessible
-                       &&
-                       !atoms2areAccessible[i]
-                       &&
-                       atom2isAccessible) {
-                paths.get(i).get(
-                        BreadthFirstSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
-                                 ).setDistance(
-                   xwalk.constants.Constants.SECOND_ATOM_IS_SOLVENT_INACCESSIBLE
-                                 );
-            } else if (atom1isAccessible
-                    &&
-                    !atoms2areAccessible[i]
-                    &&
-                    !successful) {
-                Path path = new Path();
-                GridCell dummy = new GridCell(atom1.getXYZ(),
-                                              GridCell.getSize());
-                dummy.setDistance(
-                   xwalk.constants.Constants.SECOND_ATOM_IS_SOLVENT_INACCESSIBLE
-                              );
-                path.add(dummy);
-                paths.add(i, path);
-            } else if (!atom1isAccessible && !atoms2areAccessible[i]) {
-                // if both are inaccessible
-                Path path = new Path();
-                GridCell dummy = new GridCell(atom1.getXYZ(),
-                                              GridCell.getSize());
-                dummy.setDistance(
-                   xwalk.constants.Constants.BOTH_ATOMS_ARE_SOLVENT_INACCESSIBLE
-                                 );
-                path.add(dummy);
-                paths.add(i, path);
-            } else if (atom1isAccessible
-                       &&
-                       atoms2areAccessible[i]
-                       &&
-                       successful
-                       &&
-                       paths.get(i).get(
-                               BreadthFirstSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
-                                        ).getDistance()
-                                           == Constants.DEFAULT_GRID_DISTANCE) {
-                // if non of the above apply, than the distance exceeds max
-                paths.get(i).get(
-                        BreadthFirstSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
-                                 ).setDistance(
-                             xwalk.constants.Constants.NON_CONFORMING_CROSS_LINK
-                                 );
-            }
-        }
-    return paths;
-    }
-    //--------------------------------------------------------------------------
     /**
      * Removes all crossLink object in a CrossLinkList that have a SASD < -0.6,
      * which causes the removal of any non-conforming crossLink object from the
@@ -71,6 +71,7 @@ public class MonoLink extends Atom {
         this.setXlogP(atom.getXlogP());
         this.setChargeState(atom.getChargeState());
         this.setICode(atom.getICode());
+        this.setId(atom.getId());
     }
     //--------------------------------------------------------------------------
     /**
@@ -0,0 +1,887 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ *
+ */
+
+package xwalk.crosslink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import structure.constants.Constants;
+import structure.constants.Constants.ShortestPathAlgorithms;
+import structure.grid.AtomCellList;
+import structure.grid.AtomGrid;
+import structure.grid.GridArena;
+import structure.grid.GridCell;
+import structure.grid.GridUtilities;
+import structure.grid.Path;
+import structure.grid.SolventLabelling;
+import structure.math.algorithms.ShortestPathSearch;
+import structure.math.Mathematics;
+import structure.matter.Atom;
+import structure.matter.AtomList;
+import structure.matter.protein.AminoAcid;
+import xwalk.crosslink.CrossLinkParameter.Parameter;
+import xwalk.math.SolventPathDistance;
+
+/**
+ * Task that calculates the Solvent-Path distances from a single source atom to
+ * all of its paired atoms on a local grid, or between their residues. All
+ * parameters are read from the CrossLinkParameter class at construction time,
+ * so that the task can be executed on any thread without accessing any shared
+ * mutable state.
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public class SolventPathDistanceTask
+                                  implements Callable < ArrayList < Path > > {
+
+    /**
+     * Ids of the atoms to be excluded from the local grid. The bitset is
+     * reused by all tasks that are executed on the same thread.
+     */
+    private static final ThreadLocal < BitSet > EXCLUDED_IDS =
+                                                  new ThreadLocal < BitSet >() {
+        protected BitSet initialValue() {
+            return new BitSet();
+        }
+    };
+    /**
+     * Storage of the local grids. The storage is reused by all tasks that are
+     * executed on the same thread, which is possible as the paths returned by
+     * a task hold only copies of grid cells. It is created by the first task
+     * on each thread and must be released with
+     * {@link #releaseThreadStorage()}, once no more tasks are executed on the
+     * thread.
+     */
+    private static final ThreadLocal < GridArena > GRID_ARENAS =
+                                                new ThreadLocal < GridArena >();
+    /**
+     * Source atom from which all distances are calculated.
+     */
+    private Atom atom;
+    /**
+     * List of atoms to which the distances are calculated.
+     */
+    private AtomList pairedAtoms;
+    /**
+     * Cell list over all atoms in the protein complex.
+     */
+    private AtomCellList complexAtoms;
+    /**
+     * Grid build on the entire protein complex, from which the local grid is
+     * cut out. If {@code NULL}, the local grid is build from complexAtoms.
+     */
+    private AtomGrid complexGrid;
+    /**
+     * Labelling of the solvent of complexGrid into bulk solvent and enclosed
+     * cavities. {@code NULL} if the local grid is build from complexAtoms.
+     */
+    private SolventLabelling labelling;
+    /**
+     * Maximum distance to search for.
+     */
+    private float maxDist;
+    /**
+     * Edge length of the grid cells.
+     */
+    private float gridCellSize;
+    /**
+     * Algorithm which will be used to find the shortest paths.
+     */
+    private ShortestPathAlgorithms algorithm;
+    /**
+     * To stop the search as soon as the distances to all targets are final.
+     */
+    private boolean doEarlyTermination;
+    /**
+     * To trace back the shortest paths from the targets to the source.
+     */
+    private boolean doBacktracking;
+    /**
+     * To output information on the solvent accessibility of atoms.
+     */
+    private boolean doVerbose;
+    /**
+     * To keep a String representation of the grid after the search.
+     */
+    private boolean doGridOutput;
+    /**
+     * To answer paired atoms in line of sight without a search on the grid.
+     */
+    private boolean doLineOfSight;
+    /**
+     * To shorten the shortest paths by straight lines through the solvent.
+     */
+    private boolean doPathSmoothing;
+    /**
+     * To hold the storage of the local grids in direct buffers outside of the
+     * Java heap.
+     */
+    private boolean doOffHeapGrids;
+    /**
+     * String representation of the grid after the search.
+     */
+    private String gridString = "";
+    /**
+     * Number of paired atoms that have been answered by the line of sight
+     * test.
+     */
+    private int noOfLineOfSightPairs = 0;
+    /**
+     * Atoms of the source residue from which the search starts, starting with
+     * the source atom. {@code NULL} if distances are calculated between atoms
+     * rather than residues.
+     */
+    private AtomList sourceResidueAtoms;
+    /**
+     * Atoms of the paired residues, all in a single list.
+     */
+    private AtomList targetAtoms;
+    /**
+     * Position of the paired atom in pairedAtoms, to whose residue each atom
+     * in targetAtoms belongs.
+     */
+    private int[] targetOwners;
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     * @param atom
+     *        - Atom object from which all distances are calculated.
+     * @param pairedAtoms
+     *        - List of atoms to be cross-linked to atom.
+     * @param complexAtoms
+     *        - Cell list over all atoms in the protein complex. The cell list
+     *          is only read, so that it can be shared among tasks.
+     */
+    public SolventPathDistanceTask(final Atom atom,
+                                   final AtomList pairedAtoms,
+                                   final AtomCellList complexAtoms) {
+        this(atom, pairedAtoms);
+        this.complexAtoms = complexAtoms;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor, which cuts the local grid out of a grid that has been build
+     * on the entire protein complex.
+     * @param atom
+     *        - Atom object from which all distances are calculated.
+     * @param pairedAtoms
+     *        - List of atoms to be cross-linked to atom.
+     * @param complexGrid
+     *        - AtomGrid object build on all atoms of the protein complex. The
+     *          grid is only read, so that it can be shared among tasks.
+     * @param labelling
+     *        - SolventLabelling object of the complexGrid, from which the
+     *          solvent accessibility of all atoms is looked up. The labelling
+     *          is only read, so that it can be shared among tasks.
+     */
+    public SolventPathDistanceTask(final Atom atom,
+                                   final AtomList pairedAtoms,
+                                   final AtomGrid complexGrid,
+                                   final SolventLabelling labelling) {
+        this(atom, pairedAtoms);
+        this.complexGrid = complexGrid;
+        this.labelling = labelling;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor, which reads all parameters.
+     * @param atom
+     *        - Atom object from which all distances are calculated.
+     * @param pairedAtoms
+     *        - List of atoms to be cross-linked to atom.
+     */
+    private SolventPathDistanceTask(final Atom atom,
+                                    final AtomList pairedAtoms) {
+        this.atom = atom;
+        this.pairedAtoms = pairedAtoms;
+
+        this.maxDist = Float.parseFloat(CrossLinkParameter.getParameter(
+                                                      Parameter.MAXIMUM_DISTANCE
+                                                                       ));
+        this.gridCellSize = Float.parseFloat(CrossLinkParameter.getParameter(
+                                                        Parameter.GRID_CELL_SIZE
+                                                                            ));
+        String algorithmName = CrossLinkParameter.getParameter(
+                                             Parameter.SHORTEST_PATH_ALGORITHM);
+        if (algorithmName == null) {
+            this.algorithm = ShortestPathAlgorithms.BFS;
+        } else {
+            this.algorithm = ShortestPathAlgorithms.valueOf(algorithmName);
+        }
+        this.doEarlyTermination = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                  Parameter.DO_EARLY_TERMINATION
+                                                                             ));
+        this.doBacktracking = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                       Parameter.DO_PYMOL_OUTPUT
+                                                                             ));
+        this.doVerbose = Boolean.parseBoolean(CrossLinkParameter.getParameter(
+                                                     Parameter.DO_VERBOSE_OUTPUT
+                                                                             ));
+        this.doGridOutput = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                        Parameter.DO_GRID_OUTPUT
+                                                                             ));
+        this.doLineOfSight = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                      Parameter.DO_LINE_OF_SIGHT
+                                                                             ));
+        this.doPathSmoothing = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                     Parameter.DO_PATH_SMOOTHING
+                                                                             ));
+        this.doOffHeapGrids = Boolean.parseBoolean(
+                                               CrossLinkParameter.getParameter(
+                                                     Parameter.DO_OFF_HEAP_GRIDS
+                                                                             ));
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the atoms of the residues of the source atom and of all paired
+     * atoms, so that the task calculates the Solvent-Path distances between
+     * residues rather than atoms. A single search then starts from all atoms
+     * of the source residue at once, and each paired atom gets the shortest
+     * distance to any atom of its residue assigned.
+     * @param sourceAtoms
+     *        - List of atoms of the source residue, which holds the source
+     *          atom.
+     * @param pairedResidueAtoms
+     *        - List of AtomList objects, each holding the atoms of the residue
+     *          of the paired atom at the same position in the list of paired
+     *          atoms.
+     */
+    public final void setResidueAtoms(
+                        final AtomList sourceAtoms,
+                        final ArrayList < AtomList > pairedResidueAtoms) {
+        // the source atom and each paired atom come first, so that their
+        // status codes are kept if no atom of a residue can be reached.
+        this.sourceResidueAtoms = new AtomList();
+        this.sourceResidueAtoms.add(this.atom);
+        for (Atom sourceAtom : sourceAtoms) {
+            if (sourceAtom != this.atom) {
+                this.sourceResidueAtoms.add(sourceAtom);
+            }
+        }
+        this.targetAtoms = new AtomList();
+        ArrayList < Integer > owners = new ArrayList < Integer >();
+        for (int i = 0; i < this.pairedAtoms.size(); i++) {
+            Atom pairedAtom = this.pairedAtoms.get(i);
+            this.targetAtoms.add(pairedAtom);
+            owners.add(i);
+            for (Atom residueAtom : pairedResidueAtoms.get(i)) {
+                if (residueAtom != pairedAtom) {
+                    this.targetAtoms.add(residueAtom);
+                    owners.add(i);
+                }
+            }
+        }
+        this.targetOwners = new int[owners.size()];
+        for (int i = 0; i < owners.size(); i++) {
+            this.targetOwners[i] = owners.get(i);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the source atom of this task.
+     * @return Atom object.
+     */
+    public final Atom getAtom() {
+        return this.atom;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the list of atoms to which the distances are calculated.
+     * @return AtomList object.
+     */
+    public final AtomList getPairedAtoms() {
+        return this.pairedAtoms;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the String representation of the local grid after the search.
+     * The String is only set if the grid output has been requested.
+     * @return String object in PDB format.
+     */
+    public final String getGridString() {
+        return this.gridString;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of paired atoms whose distance has been answered by
+     * the line of sight test rather than by a search on the grid.
+     * @return integer value representing the number of paired atoms.
+     */
+    public final int getNumberOfLineOfSightPairs() {
+        return this.noOfLineOfSightPairs;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the storage of the local grids of the current thread, which is
+     * created if the thread has none yet or if it is held on the wrong side
+     * of the Java heap.
+     * @return GridArena object.
+     */
+    private GridArena getGridArena() {
+        GridArena arena = GRID_ARENAS.get();
+        if (arena == null || arena.isOffHeap() != this.doOffHeapGrids) {
+            arena = new GridArena(this.doOffHeapGrids);
+            GRID_ARENAS.set(arena);
+        }
+        return arena;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Releases the storage that tasks have kept for reuse on the current
+     * thread, so that direct buffers outside of the Java heap do not outlive
+     * the calculation.
+     */
+    public static void releaseThreadStorage() {
+        GRID_ARENAS.remove();
+        EXCLUDED_IDS.remove();
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns a factory for the threads of a thread pool that executes tasks.
+     * Each thread releases its storage with {@link #releaseThreadStorage()}
+     * when it terminates, e.g. on the shutdown of the thread pool.
+     * @return ThreadFactory object.
+     */
+    public static ThreadFactory getThreadFactory() {
+        final ThreadFactory threadFactory = Executors.defaultThreadFactory();
+        return new ThreadFactory() {
+            public Thread newThread(final Runnable runnable) {
+                return threadFactory.newThread(new Runnable() {
+                    public void run() {
+                        try {
+                            runnable.run();
+                        } finally {
+                            SolventPathDistanceTask.releaseThreadStorage();
+                        }
+                    }
+                });
+            }
+        };
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Builds the local grid around the source atom, from which all paired
+     * atoms and the source atom itself are excluded, and calculates the
+     * shortest paths through the solvent.
+     * @return List of Path objects, one for each paired atom, or an empty list
+     *         if the search had to be stopped prematurely.
+     */
+    public final ArrayList < Path > call() {
+        ArrayList < Path > paths = null;
+        if (this.sourceResidueAtoms == null) {
+            paths = this.getPathsWithoutSearch();
+        }
+        if (paths != null) {
+            return paths;
+        }
+        AtomGrid grid;
+        if (this.complexGrid != null) {
+            // the cross-linked atoms need not be excluded from the window, as
+            // their grid cells are unoccupied anyway by SolventPathDistance.
+            grid = new AtomGrid(this.complexGrid,
+                                this.atom,
+                                this.maxDist + this.getSourceResidueExtent(),
+                                this.getGridArena());
+        } else {
+            grid = this.buildLocalGrid();
+        }
+
+        paths = this.calculateShortestPathThroughSolvent(grid);
+        if (this.doGridOutput) {
+            this.gridString = grid.toString();
+        }
+        if (this.sourceResidueAtoms != null) {
+            paths = this.getResiduePaths(paths);
+        }
+        return paths;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the largest distance between the source atom and any other atom
+     * of the source residue, by which the local grid has to be enlarged, so
+     * that it holds all paths that start from any of these atoms.
+     * @return float value representing the distance or 0 if distances are
+     *         calculated between atoms.
+     */
+    private float getSourceResidueExtent() {
+        float extent = 0;
+        if (this.sourceResidueAtoms != null) {
+            for (Atom sourceAtom : this.sourceResidueAtoms) {
+                extent = Math.max(extent, Mathematics.distance(
+                                                        this.atom.getXYZ(),
+                                                        sourceAtom.getXYZ()));
+            }
+        }
+        return extent;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Reduces the paths to all atoms of the paired residues to a single path
+     * for each paired atom, which is the shortest path to any atom of its
+     * residue. If no atom of the residue got a distance assigned, the path
+     * to the paired atom itself with its status code is kept.
+     * @param paths
+     *        - List of Path objects, one for each atom in targetAtoms, or an
+     *          empty list if the search had to be stopped prematurely.
+     * @return List of Path objects, one for each paired atom.
+     */
+    private ArrayList < Path > getResiduePaths(final ArrayList < Path > paths) {
+        if (paths.size() == 0) {
+            return paths;
+        }
+        ArrayList < Path > residuePaths = new ArrayList < Path >();
+        for (int i = 0; i < paths.size(); i++) {
+            int owner = this.targetOwners[i];
+            Path path = paths.get(i);
+            if (owner == residuePaths.size()) {
+                // the paired atom itself comes first.
+                residuePaths.add(path);
+                continue;
+            }
+            float dist = SolventPathDistance.extractTargetDistances(path);
+            float shortest = SolventPathDistance.extractTargetDistances(
+                                                       residuePaths.get(owner));
+            if (dist >= 0
+                &&
+                dist != Constants.DEFAULT_GRID_DISTANCE
+                &&
+                (dist < shortest
+                 ||
+                 shortest < 0
+                 ||
+                 shortest == Constants.DEFAULT_GRID_DISTANCE)) {
+                residuePaths.set(owner, path);
+            }
+        }
+        return residuePaths;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Builds the local grid around the source atom from all atoms of the
+     * protein complex that overlap the grid, except the source atom and its
+     * paired atoms.
+     * @return AtomGrid object.
+     */
+    private AtomGrid buildLocalGrid() {
+        // atoms with centres outside the local grid do not occupy any grid
+        // cell, so only atoms close to the grid need to be visited. Add one
+        // grid cell as the number of grid cells is rounded.
+        float size = this.maxDist + this.getSourceResidueExtent();
+        AtomList localAtoms = this.complexAtoms.getAtoms(
+                                                  this.atom,
+                                                  size + 1
+                                                  + this.gridCellSize);
+        AtomList xLedAtoms = this.getCrossLinkedAtoms();
+        AtomList nonXLedAtoms;
+        if (SolventPathDistanceTask.hasAtomIds(xLedAtoms)) {
+            nonXLedAtoms = SolventPathDistanceTask.getNonCrossLinkedAtomsById(
+                                                                     localAtoms,
+                                                                     xLedAtoms);
+        } else {
+            nonXLedAtoms = SolventPathDistanceTask.getNonCrossLinkedAtomsByName(
+                                                                     localAtoms,
+                                                                     xLedAtoms);
+        }
+
+        return new AtomGrid(nonXLedAtoms,
+                            this.atom,
+                            size,
+                            this.gridCellSize,
+                            this.getGridArena());
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the atoms to be excluded from the local grid, i.e. the source
+     * atom and its paired atoms or, if distances are calculated between
+     * residues, all atoms of their residues.
+     * @return AtomList object.
+     */
+    private AtomList getCrossLinkedAtoms() {
+        AtomList xLedAtoms = new AtomList();
+        if (this.sourceResidueAtoms != null) {
+            xLedAtoms.addAll(this.sourceResidueAtoms);
+            xLedAtoms.addAll(this.targetAtoms);
+        } else {
+            xLedAtoms.add(this.atom);
+            xLedAtoms.addAll(this.pairedAtoms);
+        }
+        return xLedAtoms;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Checks whether all cross-linked atoms have been assigned an id.
+     * @param xLedAtoms
+     *        - List of cross-linked atoms.
+     * @return {@code TRUE} if all atoms have an id, {@code FALSE} otherwise.
+     * @see structure.matter.Atom#getId()
+     */
+    private static boolean hasAtomIds(final AtomList xLedAtoms) {
+        for (Atom xLedAtom : xLedAtoms) {
+            if (xLedAtom.getId() < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns all atoms except the cross-linked atoms, which are identified
+     * by their ids.
+     * @param atoms
+     *        - List of atoms to be filtered.
+     * @param xLedAtoms
+     *        - List of cross-linked atoms.
+     * @return AtomList object holding all atoms that are not cross-linked.
+     */
+    private static AtomList getNonCrossLinkedAtomsById(
+                                                     final AtomList atoms,
+                                                     final AtomList xLedAtoms) {
+        BitSet excluded = EXCLUDED_IDS.get();
+        for (Atom xLedAtom : xLedAtoms) {
+            excluded.set(xLedAtom.getId());
+        }
+        AtomList nonXLedAtoms = new AtomList();
+        for (Atom atom2 : atoms) {
+            if (atom2.getId() < 0 || !excluded.get(atom2.getId())) {
+                nonXLedAtoms.add(atom2);
+            }
+        }
+        // leave the bitset empty for the next task on this thread.
+        for (Atom xLedAtom : xLedAtoms) {
+            excluded.clear(xLedAtom.getId());
+        }
+        return nonXLedAtoms;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns all atoms except the cross-linked atoms, which are identified
+     * by their residue and atom names. Used for atoms that have not been read
+     * in from a PDB file.
+     * @param atoms
+     *        - List of atoms to be filtered.
+     * @param xLedAtoms
+     *        - List of cross-linked atoms.
+     * @return AtomList object holding all atoms that are not cross-linked.
+     */
+    private static AtomList getNonCrossLinkedAtomsByName(
+                                                     final AtomList atoms,
+                                                     final AtomList xLedAtoms) {
+        String pairedAminoAcidId = "";
+        for (Atom xLedAtom : xLedAtoms) {
+            pairedAminoAcidId += "#" + AminoAcid.getAminoAcidId(xLedAtom)
+                                     + xLedAtom.getName() + "#";
+        }
+        AtomList nonXLedAtoms = new AtomList();
+        for (Atom complexAtom : atoms) {
+            String complexAminoAcidId = "#" + AminoAcid.getAminoAcidId(
+                                                                     complexAtom
+                                                                      )
+                                            + complexAtom.getName() + "#";
+            if (pairedAminoAcidId.indexOf(complexAminoAcidId) == -1) {
+                nonXLedAtoms.add(complexAtom);
+            }
+        }
+        return nonXLedAtoms;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Answers all paired atoms from the labelling of the complex, if no path
+     * can be found anyway. SolventPathDistance unoccupies the grid cells of
+     * the source atom and its paired atoms enlarged by the solvent radius, so
+     * that each of them joins the bulk solvent and enclosed cavities at its
+     * border, as well as any other of them that it overlaps or touches. If the
+     * source atom is thereby only connected to enclosed cavities, it is
+     * regarded as buried. If no paired atom is connected to the source atom,
+     * all distances exceed the maximum distance.
+     * @return List of Path objects, one for each paired atom, or {@code NULL}
+     *         if a search on the local grid is needed.
+     */
+    private ArrayList < Path > getPathsWithoutSearch() {
+        if (this.labelling == null || this.doGridOutput) {
+            return null;
+        }
+        // the source atom comes first, followed by all paired atoms.
+        AtomList atoms = new AtomList();
+        atoms.add(this.getUnoccupiedAtom(this.atom));
+        for (Atom pairedAtom : this.pairedAtoms) {
+            atoms.add(this.getUnoccupiedAtom(pairedAtom));
+        }
+        BitSet[] contacts = new BitSet[atoms.size()];
+        for (int i = 0; i < atoms.size(); i++) {
+            contacts[i] = this.labelling.getLabels(atoms.get(i));
+            // leave the status codes of atoms without any solvent around them
+            // to the search.
+            if (contacts[i].isEmpty()) {
+                return null;
+            }
+        }
+        // cells of two atoms are neighbours if their centres are within the
+        // space diagonal of a grid cell.
+        float diagonal = (float) (this.gridCellSize * Math.sqrt(3)) + 0.01f;
+        BitSet connected = (BitSet) contacts[0].clone();
+        boolean[] isConnected = new boolean[atoms.size()];
+        isConnected[0] = true;
+        boolean hasChanged = true;
+        while (hasChanged) {
+            hasChanged = false;
+            for (int i = 1; i < atoms.size(); i++) {
+                if (isConnected[i]) {
+                    continue;
+                }
+                boolean touches = contacts[i].intersects(connected);
+                for (int j = 0; j < atoms.size() && !touches; j++) {
+                    touches = isConnected[j]
+                              &&
+                              Mathematics.distance(atoms.get(i).getXYZ(),
+                                                   atoms.get(j).getXYZ())
+                              <= atoms.get(i).getVanDerWaalsRadius()
+                                 + atoms.get(j).getVanDerWaalsRadius()
+                                 + diagonal;
+                }
+                if (touches) {
+                    isConnected[i] = true;
+                    connected.or(contacts[i]);
+                    hasChanged = true;
+                }
+            }
+        }
+        boolean[] atoms2areAccessible = new boolean[this.pairedAtoms.size()];
+        Arrays.fill(atoms2areAccessible, true);
+        if (!connected.get(SolventLabelling.BULK_SOLVENT)) {
+            // an empty list of paths is regarded as failed search.
+            return this.setStatusCodes(new ArrayList < Path >(),
+                                       true,
+                                       atoms2areAccessible);
+        }
+        for (int i = 1; i < atoms.size(); i++) {
+            if (isConnected[i]) {
+                return null;
+            }
+        }
+        ArrayList < Path > paths = new ArrayList < Path >();
+        for (Atom pairedAtom : this.pairedAtoms) {
+            Path path = new Path();
+            GridCell target = new GridCell(pairedAtom.getXYZ(),
+                                           this.gridCellSize);
+            target.setDistance(Constants.DEFAULT_GRID_DISTANCE);
+            path.add(target);
+            paths.add(path);
+        }
+        return this.setStatusCodes(paths, true, atoms2areAccessible);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns a copy of an atom with the radius, within which
+     * SolventPathDistance unoccupies the grid cells of the atom.
+     * @param atom1
+     *        - Atom object.
+     * @return Atom object with the van der Waals radius enlarged by the
+     *         solvent radius.
+     * @see xwalk.math.SolventPathDistance
+     */
+    private Atom getUnoccupiedAtom(final Atom atom1) {
+        Atom unoccupied = atom1.copy();
+        unoccupied.setVanDerWaalsRadius();
+        unoccupied.setVanDerWaalsRadius(unoccupied.getVanDerWaalsRadius()
+                                        +
+                                        Constants.SOLVENT_RADIUS);
+        return unoccupied;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Calculates solvent path distances using a local grid.
+     * @param grid
+     *      - Local AtomGrid object build around the source atom.
+     * @return List of Path objects that form the shortest path between the
+     *         source atom and the paired atoms. Those paths that exceed -max
+     *         with their length have only a single grid cell stored, namely the
+     *         grid cell of the target cell.
+     */
+    private ArrayList < Path > calculateShortestPathThroughSolvent(
+                                                          final AtomGrid grid
+                                                                  ) {
+        Atom atom1 = this.atom;
+        AtomList atoms1 = new AtomList();
+        AtomList atoms2 = this.pairedAtoms;
+        if (this.sourceResidueAtoms != null) {
+            atoms1 = this.sourceResidueAtoms;
+            atoms2 = this.targetAtoms;
+        }
+        // as soon as one of atom2 is solvent accessible calculate
+        // shortest path.
+        SolventPathDistance solvDist  = new SolventPathDistance(
+                                                               atom1,
+                                                               atoms2,
+                                                               grid);
+        for (Atom sourceAtom : atoms1) {
+            if (sourceAtom != atom1) {
+                solvDist.addSourceAtom(sourceAtom);
+            }
+        }
+        solvDist.setShortestPathAlgorithm(this.algorithm);
+        solvDist.setEarlyTermination(this.doEarlyTermination);
+        solvDist.setBacktracking(this.doBacktracking);
+        solvDist.setLineOfSight(this.doLineOfSight);
+        solvDist.setPathSmoothing(this.doPathSmoothing);
+        // the distances of the entire grid are only needed for the grid output.
+        solvDist.setBoundedSearch(!this.doGridOutput);
+        // check which atoms are accessible
+        ArrayList < Path > paths  = new ArrayList < Path >();
+        boolean atom1isAccessible = false;
+        if (GridUtilities.isAccessible(atom1, grid, this.doVerbose)) {
+            atom1isAccessible = true;
+        }
+        // a residue is accessible as soon as any of its atoms is.
+        for (Atom sourceAtom : atoms1) {
+            if (!atom1isAccessible
+                &&
+                sourceAtom != atom1
+                &&
+                GridUtilities.isAccessible(sourceAtom, grid, this.doVerbose)) {
+                atom1isAccessible = true;
+            }
+        }
+        boolean[] atoms2areAccessible = new boolean[atoms2.size()];
+        boolean atom2isAccessible = false;
+        for (int i = 0; i < atoms2.size(); i++) {
+            if (GridUtilities.isAccessible(atoms2.get(i),
+                                           grid,
+                                           this.doVerbose)) {
+                atoms2areAccessible[i] = true;
+                atom2isAccessible = true;
+            }
+        }
+        // only continue if atom1 is accessible
+        if (atom1isAccessible && atom2isAccessible) {
+            paths = solvDist.getShortestPath(this.maxDist);
+            if (paths.size() > 0) {
+                this.noOfLineOfSightPairs =
+                                     solvDist.getNumberOfLineOfSightTargets();
+            }
+        }
+    return this.setStatusCodes(paths, atom1isAccessible, atoms2areAccessible);
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the distances of those paths, whose distance could not be
+     * calculated, to the status codes that tell the reason.
+     * @param paths
+     *        - List of Path objects as returned by the search, which is empty
+     *          if no search has been done or the search failed.
+     * @param atom1isAccessible
+     *        - boolean value, {@code TRUE} if the source atom is solvent
+     *          accessible.
+     * @param atoms2areAccessible
+     *        - Array of boolean values, {@code TRUE} for each paired atom that
+     *          is solvent accessible.
+     * @return List of Path objects, one for each paired atom.
+     */
+    private ArrayList < Path > setStatusCodes(
+                                         final ArrayList < Path > paths,
+                                         final boolean atom1isAccessible,
+                                         final boolean[] atoms2areAccessible) {
+        Atom atom1 = this.atom;
+        boolean atom2isAccessible = false;
+        for (boolean isAccessible : atoms2areAccessible) {
+            atom2isAccessible |= isAccessible;
+        }
+        boolean successful = paths.size() == 0 ? false : true;
+        for (int i = 0; i < atoms2areAccessible.length; i++) {
+            // if distance calculations were performed but an empty path array
+            // was returned, than the first atom is buried.
+            if (atom1isAccessible && atom2isAccessible && !successful) {
+                Path path = new Path();
+                GridCell dummy = new GridCell(atom1.getXYZ(),
+                                              this.gridCellSize);
+                dummy.setDistance(
+                              xwalk.constants.Constants.FIRST_ATOM_IS_BURIED
+                                 );
+                path.add(dummy);
+                paths.add(i, path);
+            } else if (!atom1isAccessible && atoms2areAccessible[i]) {
+                Path path = new Path();
+                GridCell dummy = new GridCell(atom1.getXYZ(),
+                                              this.gridCellSize);
+                dummy.setDistance(
+                    xwalk.constants.Constants.FIRST_ATOM_IS_SOLVENT_INACCESSIBLE
+                                 );
+                path.add(dummy);
+                paths.add(i, path);
+            } else if (atom1isAccessible
+                       &&
+                       !atoms2areAccessible[i]
+                       &&
+                       atom2isAccessible) {
+                paths.get(i).get(
+                        ShortestPathSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
+                                 ).setDistance(
+                   xwalk.constants.Constants.SECOND_ATOM_IS_SOLVENT_INACCESSIBLE
+                                 );
+            } else if (atom1isAccessible
+                    &&
+                    !atoms2areAccessible[i]
+                    &&
+                    !successful) {
+                Path path = new Path();
+                GridCell dummy = new GridCell(atom1.getXYZ(),
+                                              this.gridCellSize);
+                dummy.setDistance(
+                   xwalk.constants.Constants.SECOND_ATOM_IS_SOLVENT_INACCESSIBLE
+                              );
+                path.add(dummy);
+                paths.add(i, path);
+            } else if (!atom1isAccessible && !atoms2areAccessible[i]) {
+                // if both are inaccessible
+                Path path = new Path();
+                GridCell dummy = new GridCell(atom1.getXYZ(),
+                                              this.gridCellSize);
+                dummy.setDistance(
+                   xwalk.constants.Constants.BOTH_ATOMS_ARE_SOLVENT_INACCESSIBLE
+                                 );
+                path.add(dummy);
+                paths.add(i, path);
+            } else if (atom1isAccessible
+                       &&
+                       atoms2areAccessible[i]
+                       &&
+                       successful
+                       &&
+                       paths.get(i).get(
+                               ShortestPathSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
+                                        ).getDistance()
+                                           == Constants.DEFAULT_GRID_DISTANCE) {
+                // if non of the above apply, than the distance exceeds max
+                paths.get(i).get(
+                        ShortestPathSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
+                                 ).setDistance(
+                             xwalk.constants.Constants.NON_CONFORMING_CROSS_LINK
+                                 );
+            }
+        }
+    return paths;
+    }
+}
@@ -15,8 +15,11 @@
 
 package xwalk.io;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
 
 import structure.constants.Constants;
+import structure.constants.Constants.ShortestPathAlgorithms;
 import structure.exceptions.CommandlineArgumentFormatException;
 import structure.exceptions.CommandlineArgumentNotFoundException;
 import structure.io.Commandline;
@@ -131,6 +134,13 @@ public class CommandlineArguments {
      */
     private double maximumDistance =
                           xwalk.constants.Constants.DEFAULT_CROSS_LINKER_LENGTH;
+    /**
+     * '#' separated maximal distances of all cross-linkers against which
+     * each cross-link is classified. Only set if more than one distance has
+     * been given.
+     * Default {@code maximumDistances = ""}.
+     */
+    private String maximumDistances = "";
     /**
      * To output a PyMol script that visualizes all cross-links.
      * Default {@code pymolOutput = FALSE}.
@@ -147,6 +157,58 @@ public class CommandlineArguments {
      * Default {@code gridCellLength = Constants.DEFAULT_GRID_CELL_SIZE}.
      */
     private double gridCellLength = Constants.DEFAULT_GRID_CELL_SIZE;
+    /**
+     * Algorithm for finding shortest paths on grids.
+     * Default {@code shortestPathAlgorithm = ShortestPathAlgorithms.BFS}.
+     */
+    private ShortestPathAlgorithms shortestPathAlgorithm =
+                                                    ShortestPathAlgorithms.BFS;
+    /**
+     * To stop shortest path searches as soon as all target atoms are reached.
+     * Default {@code doEarlyTermination = FALSE}.
+     */
+    private boolean doEarlyTermination = false;
+    /**
+     * Number of threads on which Solvent-Path-Distances are calculated.
+     * Default {@code numberOfThreads = 1}.
+     */
+    private int numberOfThreads = 1;
+    /**
+     * To build a single grid for the entire protein complex, from which local
+     * grids are cut out for each cross-linked atom.
+     * Default {@code doComplexRaster = FALSE}.
+     */
+    private boolean doComplexRaster = false;
+    /**
+     * To assign the Euclidean distance to cross-links whose straight line
+     * runs entirely through the solvent without searching the grid.
+     * Default {@code doLineOfSight = FALSE}.
+     */
+    private boolean doLineOfSight = false;
+    /**
+     * To shorten the shortest paths on the grid by straight lines through
+     * the solvent and to report their lengths as distances.
+     * Default {@code doPathSmoothing = FALSE}.
+     */
+    private boolean doPathSmoothing = false;
+    /**
+     * To hold the storage of the grids in direct buffers outside of the Java
+     * heap.
+     * Default {@code doOffHeapGrids = FALSE}.
+     */
+    private boolean doOffHeapGrids = false;
+    /**
+     * To calculate the Solvent-Path distances between residues rather than
+     * between single atoms.
+     * Default {@code doResidueDistance = FALSE}.
+     */
+    private boolean doResidueDistance = false;
+    /**
+     * To choose the source atoms of the Solvent-Path distance searches by a
+     * greedy cover of all cross-links.
+     * Default {@code doSourceCover = FALSE}.
+     */
+    private boolean doSourceCover = false;
     /**
      * Solvent radius for calculating SAS.
      * Default {@code solventRadius = 1.4}.
@@ -242,6 +304,15 @@ public class CommandlineArguments {
         this.readChainIds2Argument();
         this.readForceArgument();
         this.readGridCellSizeArgument();
+        this.readShortestPathAlgorithmArgument();
+        this.readEarlyTerminationArgument();
+        this.readNumberOfThreadsArgument();
+        this.readComplexRasterArgument();
+        this.readLineOfSightArgument();
+        this.readPathSmoothingArgument();
+        this.readOffHeapArgument();
+        this.readResidueDistanceArgument();
+        this.readSourceCoverArgument();
         this.readGridOutputArgument();
         this.readHomomericArgument();
         this.readInfileArgument();
@@ -459,7 +530,11 @@ public class CommandlineArguments {
               + "\t-max\t[double]\tCalculates distances in Angstroem "
               + "only up-to this value, where the value must be smaller than "
               + xwalk.constants.Constants.MAX_SASD_DISTANCE
-              + " for SAS distance calculations. (default: "
+              + " for SAS distance calculations. To specify more than one "
+              + "value use '#' as a delimiter, e.g. 34#25. Distances are then "
+              + "calculated up-to the largest value and each cross-link is "
+              + "classified against every value in additional output columns "
+              + "holding 1 if the distance conforms and 0 otherwise. (default: "
               + xwalk.constants.Constants.DEFAULT_CROSS_LINKER_LENGTH + ")."
               + nl
               + "\t-euc\t[switch]\tSkips Solvent-Path-Distance "
@@ -474,6 +549,19 @@ public class CommandlineArguments {
               + "coordinates as expressed by their B-factor/temperature factor "
               + "to the maximum distance threshold [optional]. "
               + nl
+              + "\t-residue\t[switch]\tOutputs for each pair of amino acids "
+              + "the shortest Solvent-Path-Distance between any of their "
+              + "atoms selected by -a1 and -a2, which is found by a single "
+              + "search from all atoms of the first amino acid. The closest "
+              + "atom pair by Euclidean distance is still reported "
+              + "[optional]. "
+              + nl
+              + "\t-cover\t[switch]\tChooses as few atoms as possible from "
+              + "which Solvent-Path-Distances are searched. Reduces run time, "
+              + "but as all other cross-linked atoms of a search are excluded "
+              + "from the grid, distances may differ slightly from the default "
+              + "[optional]. "
+              + nl
               + nl
               + "SOLVENT-PATH-DISTANCE GRID RELATED:"
               + nl
@@ -486,6 +574,52 @@ public class CommandlineArguments {
               + "cells. [optional](default "
               + Constants.DEFAULT_GRID_CELL_SIZE + ")."
               + nl
+              + "\t-search\t[String]\tAlgorithm for finding shortest paths "
+              + "on the grid. Either BFS for a breadth-first search, "
+              + "DIJKSTRA for Dijkstra's algorithm with a bucket queue, "
+              + "ASTAR for an A* search directed towards the target atoms, "
+              + "which falls back to DIJKSTRA for atoms with more than "
+              + Constants.MAX_GOAL_DIRECTED_TARGETS + " partners, or FMM for "
+              + "the fast marching method, which solves the Eikonal equation "
+              + "instead of stepping between neighbouring grid cells and is "
+              + "about as accurate at -space 2 as the others at -space 1. "
+              + "BFS, DIJKSTRA and ASTAR result in the same distances. FMM "
+              + "ignores -early "
+              + "[optional](default " + ShortestPathAlgorithms.BFS + ")."
+              + nl
+              + "\t-early\t[switch]\tStops each shortest path search as soon "
+              + "as the distances to all target atoms are final. Distances are "
+              + "the same as without this switch, but grids output with -grid "
+              + "remain incomplete [optional]."
+              + nl
+              + "\t-threads\t[int]\tNumber of threads on which "
+              + "Solvent-Path-Distances are calculated in parallel "
+              + "[optional](default 1)."
+              + nl
+              + "\t-raster\t[switch]\tBuilds the grid only once for the entire "
+              + "protein complex and cuts out local grids around each "
+              + "cross-linked atom. Faster, but as grid cells are aligned to "
+              + "the complex rather than to each atom, distances can differ "
+              + "within the grid spacing [optional]."
+              + nl
+              + "\t-los\t[switch]\tAssigns the Euclidean distance to "
+              + "cross-links whose straight line runs entirely through "
+              + "unoccupied grid cells, without searching the grid. Faster, "
+              + "but such distances are shorter than those found on the "
+              + "grid, which are bound to grid cell centres [optional]."
+              + nl
+              + "\t-smooth\t[switch]\tShortens each path found on the grid "
+              + "by straight lines that run entirely through unoccupied grid "
+              + "cells and outputs the length of the shortened path. Allows "
+              + "coarser grids with -space at about the same accuracy "
+              + "[optional]."
+              + nl
+              + "\t-offheap\t[switch]\tKeeps the occupancy, distances and "
+              + "predecessors of the grids in memory outside of the Java "
+              + "heap, which is allocated once per thread and reused. Reduces "
+              + "the heap size and garbage collection pauses needed for large "
+              + "assemblies [optional]."
+              + nl
               + nl;
     }
     //--------------------------------------------------------------------------
@@ -1128,25 +1262,48 @@ public class CommandlineArguments {
     //--------------------------------------------------------------------------
     /**
      * Determines whether the argument -max has been set on the commandline.
+     * The argument accepts a list of distances separated by '#', so that
+     * cross-links can be classified against several cross-linkers in a single
+     * run.
      * @see #getMaximumDistanceArgument()
+     * @see #getMaximumDistancesArgument()
      */
     private void readMaximumDistanceArgument() {
         String nl = Constants.LINE_SEPERATOR;
         double max = xwalk.constants.Constants.MAX_SASD_DISTANCE;
+        ArrayList < Double > distances = new ArrayList < Double >();
         if (!Commandline.get(this.arguments, "-max", true).equals("ERROR")) {
-            this.maximumDistance = Double.parseDouble(
-                            Commandline.get(this.arguments, "-max", true).trim()
-                                                     );
+            for (String value : Commandline.get(this.arguments,
+                                                "-max",
+                                                true).split("#")) {
+                double distance = Double.parseDouble(value.trim());
 
-            // There is an upper bound on the SASD distance. Check that this
-            // is met when -max is changed by the user.
-            if (this.maximumDistance > max
-                &&
-             !Commandline.get(this.arguments, "-euc", false).equals("EXISTS")) {
-               System.err.println(nl + "WARNING: value for -max exceeds " + max
-                             + ". Setting -max to " + max);
-               this.maximumDistance = max;
+                // There is an upper bound on the SASD distance. Check that
+                // this is met when -max is changed by the user.
+                if (distance > max
+                    &&
+                    !Commandline.get(this.arguments,
+                                     "-euc",
+                                     false).equals("EXISTS")) {
+                   System.err.println(nl + "WARNING: value for -max exceeds "
+                                    + max + ". Setting -max to " + max);
+                   distance = max;
+                }
+                distances.add(distance);
+            }
+        }
+        if (distances.size() > 0) {
+            this.maximumDistance = Collections.max(distances);
+        }
+        if (distances.size() > 1) {
+            StringBuffer distanceList = new StringBuffer();
+            for (int i = 0; i < distances.size(); i++) {
+                if (i > 0) {
+                    distanceList.append("#");
+                }
+                distanceList.append(distances.get(i));
             }
+            this.maximumDistances = distanceList.toString();
         }
     }
     //--------------------------------------------------------------------------
@@ -1159,6 +1316,17 @@ public class CommandlineArguments {
         return this.maximumDistance;
     }
     //--------------------------------------------------------------------------
+    /**
+     * Returns the maximum distances of all cross-linkers against which each
+     * cross-link is to be classified.
+     * @return String object holding '#' separated distances or an empty
+     *         String if only a single maximum distance has been set.
+     * @see #readMaximumDistanceArgument()
+     */
+    public final String getMaximumDistancesArgument() {
+        return this.maximumDistances;
+    }
+    //--------------------------------------------------------------------------
     /**
      * Determines whether the argument -euc has been set on the commandline.
      * @see #isSolventPathDistanceCalculationSet()
@@ -1202,6 +1370,222 @@ public class CommandlineArguments {
         return this.gridCellLength;
     }
     //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -search has been set on the commandline.
+     * @see #getShortestPathAlgorithmArgument()
+     */
+    private void readShortestPathAlgorithmArgument() {
+        String nl = Constants.LINE_SEPERATOR;
+        if (!Commandline.get(this.arguments, "-search", true).equals("ERROR")) {
+            String arg = Commandline.get(this.arguments, "-search", true);
+            try {
+                this.shortestPathAlgorithm = ShortestPathAlgorithms.valueOf(
+                                                      arg.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println(nl + "WARNING: unknown value \"" + arg
+                                 + "\" for -search. Setting -search to "
+                                 + this.shortestPathAlgorithm);
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the algorithm for finding shortest paths on grids, which are
+     * used to calculate Solvent-Path-Distances.
+     * @return ShortestPathAlgorithms object.
+     * @see #readShortestPathAlgorithmArgument()
+     */
+    public final ShortestPathAlgorithms getShortestPathAlgorithmArgument() {
+        return this.shortestPathAlgorithm;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -early has been set on the commandline.
+     * @see #isEarlyTerminationSet()
+     */
+    private void readEarlyTerminationArgument() {
+        if (Commandline.get(this.arguments, "-early", false).equals("EXISTS")) {
+            this.doEarlyTermination = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether shortest path searches should be stopped as soon as the
+     * distances to all target atoms are final.
+     * @return {@code TRUE} if searches are to be stopped early, {@code FALSE}
+     *         otherwise.
+     * @see #readEarlyTerminationArgument()
+     */
+    public final boolean isEarlyTerminationSet() {
+        return this.doEarlyTermination;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Reads the number of threads on which Solvent-Path-Distances are
+     * calculated in parallel.
+     * @see #getNumberOfThreadsArgument()
+     */
+    private void readNumberOfThreadsArgument() {
+        String nl = Constants.LINE_SEPERATOR;
+        if (!Commandline.get(this.arguments, "-threads", true).equals(
+                                                                     "ERROR")) {
+            this.numberOfThreads = Integer.parseInt(
+                        Commandline.get(this.arguments, "-threads", true).trim()
+                                                   );
+            if (this.numberOfThreads < 1) {
+                System.err.println(nl + "WARNING: value for -threads must be "
+                                 + "at least 1. Setting -threads to 1");
+                this.numberOfThreads = 1;
+            }
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of threads on which Solvent-Path-Distances are
+     * calculated in parallel.
+     * @return integer value representing the number of threads.
+     * @see #readNumberOfThreadsArgument()
+     */
+    public final int getNumberOfThreadsArgument() {
+        return this.numberOfThreads;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -raster has been set on the commandline.
+     * @see #isComplexRasterSet()
+     */
+    private void readComplexRasterArgument() {
+        if (Commandline.get(this.arguments, "-raster", false).equals(
+                                                                    "EXISTS")) {
+            this.doComplexRaster = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether a single grid should be build for the entire protein
+     * complex, from which local grids are cut out for each cross-linked atom.
+     * @return {@code TRUE} if a single grid is to be build, {@code FALSE}
+     *         otherwise.
+     * @see #readComplexRasterArgument()
+     */
+    public final boolean isComplexRasterSet() {
+        return this.doComplexRaster;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -los has been set on the commandline.
+     * @see #isLineOfSightSet()
+     */
+    private void readLineOfSightArgument() {
+        if (Commandline.get(this.arguments, "-los", false).equals("EXISTS")) {
+            this.doLineOfSight = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether cross-links whose straight line runs entirely through
+     * the solvent get the Euclidean distance assigned without a search on the
+     * grid.
+     * @return {@code TRUE} if the line of sight is to be tested,
+     *         {@code FALSE} otherwise.
+     * @see #readLineOfSightArgument()
+     */
+    public final boolean isLineOfSightSet() {
+        return this.doLineOfSight;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -smooth has been set on the commandline.
+     * @see #isPathSmoothingSet()
+     */
+    private void readPathSmoothingArgument() {
+        if (Commandline.get(this.arguments,
+                            "-smooth",
+                            false).equals("EXISTS")) {
+            this.doPathSmoothing = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the shortest paths on the grid are to be shortened by
+     * straight lines through the solvent.
+     * @return {@code TRUE} if paths are to be shortened, {@code FALSE}
+     *         otherwise.
+     * @see #readPathSmoothingArgument()
+     */
+    public final boolean isPathSmoothingSet() {
+        return this.doPathSmoothing;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -offheap has been set on the
+     * commandline.
+     * @see #isOffHeapSet()
+     */
+    private void readOffHeapArgument() {
+        if (Commandline.get(this.arguments,
+                            "-offheap",
+                            false).equals("EXISTS")) {
+            this.doOffHeapGrids = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the storage of the grids is to be held outside of the
+     * Java heap.
+     * @return {@code TRUE} if the storage is to be held in direct buffers,
+     *         {@code FALSE} otherwise.
+     * @see #readOffHeapArgument()
+     */
+    public final boolean isOffHeapSet() {
+        return this.doOffHeapGrids;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -residue has been set on the
+     * commandline.
+     * @see #isResidueDistanceSet()
+     */
+    private void readResidueDistanceArgument() {
+        if (Commandline.get(this.arguments,
+                            "-residue",
+                            false).equals("EXISTS")) {
+            this.doResidueDistance = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the Solvent-Path distances are to be calculated between
+     * residues rather than between single atoms.
+     * @return {@code TRUE} if distances are calculated between residues,
+     *         {@code FALSE} otherwise.
+     * @see #readResidueDistanceArgument()
+     */
+    public final boolean isResidueDistanceSet() {
+        return this.doResidueDistance;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Determines whether the argument -cover has been set on the commandline.
+     * @see #isSourceCoverSet()
+     */
+    private void readSourceCoverArgument() {
+        if (Commandline.get(this.arguments, "-cover", false).equals("EXISTS")) {
+            this.doSourceCover = true;
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns whether the source atoms of the Solvent-Path distance searches
+     * are to be chosen by a greedy cover of all cross-links.
+     * @return {@code TRUE} if source atoms are chosen by a greedy cover,
+     *         {@code FALSE} otherwise.
+     * @see #readSourceCoverArgument()
+     */
+    public final boolean isSourceCoverSet() {
+        return this.doSourceCover;
+    }
+    //--------------------------------------------------------------------------
     /**
      * Determines whether the argument -intra has been set on the commandline.
      * @see #isIntraMolecularDistanceSet()
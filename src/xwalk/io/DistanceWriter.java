@@ -49,15 +49,21 @@ public class DistanceWriter extends WriteFile {
      * @return String object holding the distance file header.
      */
     private static String getDistanceFileHeader() {
+        StringBuffer separators = new StringBuffer();
+        StringBuffer columns = new StringBuffer();
+        for (float distance : CrossLinkParameter.getMaximumDistances()) {
+            separators.append("\t---");
+            columns.append("\t" + distance);
+        }
         StringBuffer output = new StringBuffer();
         output.append("#-----\t--------\t---------\t---------\t---\t---");
-        output.append("\t---\t------\t-------\t------");
+        output.append("\t---\t------\t-------\t------" + separators);
         output.append(Constants.LINE_SEPERATOR);
         output.append("#Index\tFileName\tResi1info\tResi2info\tSeq\tEuc");
-        output.append("\tSpd\tP(Euc)\tP(SASD)\tPepSeq");
+        output.append("\tSpd\tP(Euc)\tP(SASD)\tPepSeq" + columns);
         output.append(Constants.LINE_SEPERATOR);
         output.append("#-----\t--------\t---------\t---------\t---\t---");
-        output.append("\t---\t------\t-------\t------");
+        output.append("\t---\t------\t-------\t------" + separators);
         output.append(Constants.LINE_SEPERATOR);
     return output.toString();
     }
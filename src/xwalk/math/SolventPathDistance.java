@@ -18,12 +18,21 @@ package xwalk.math;
 import java.util.ArrayList;
 
 import structure.constants.Constants;
+import structure.constants.Constants.ShortestPathAlgorithms;
 import structure.grid.AtomGrid;
 import structure.grid.Grid;
 import structure.grid.GridCell;
+import structure.grid.GridUtilities;
 import structure.grid.Path;
+import structure.math.Mathematics;
+import structure.math.Point3f;
 import structure.math.Point3i;
+import structure.math.algorithms.AStarSearch;
+import structure.math.algorithms.BitboardFloodFill;
 import structure.math.algorithms.BreadthFirstSearch;
+import structure.math.algorithms.DijkstraSearch;
+import structure.math.algorithms.FastMarchingSearch;
+import structure.math.algorithms.ShortestPathSearch;
 import structure.matter.Atom;
 import structure.matter.AtomList;
 
@@ -47,6 +56,62 @@ public class SolventPathDistance {
      * Grid object which will be used to calculate the Solvent-Path distance.
      */
     private Grid grid;
+    /**
+     * Algorithm which will be used to find the shortest paths.
+     * Default {@code algorithm = ShortestPathAlgorithms.BFS}.
+     */
+    private ShortestPathAlgorithms algorithm = ShortestPathAlgorithms.BFS;
+    /**
+     * To stop the search as soon as the distances to all targets are final.
+     * Default {@code doEarlyTermination = FALSE}.
+     */
+    private boolean doEarlyTermination = false;
+    /**
+     * To trace back the shortest paths from the targets to the source.
+     * Default {@code doBacktracking = FALSE}.
+     */
+    private boolean doBacktracking = false;
+    /**
+     * To answer targets in direct line of sight of the source without a
+     * search on the grid.
+     * Default {@code doLineOfSight = FALSE}.
+     */
+    private boolean doLineOfSight = false;
+    /**
+     * To bound the search to the grid cells that can lie on a path to any
+     * target.
+     * Default {@code doBoundedSearch = FALSE}.
+     */
+    private boolean doBoundedSearch = false;
+    /**
+     * To shorten the shortest paths by straight lines through the solvent and
+     * to assign the lengths of the shortened paths as distances.
+     * Default {@code doPathSmoothing = FALSE}.
+     */
+    private boolean doPathSmoothing = false;
+    /**
+     * Cartesian coordinates of the source atom, if known.
+     */
+    private Point3f sourceXYZ;
+    /**
+     * Cartesian coordinates of the target atoms, if known.
+     */
+    private ArrayList < Point3f > targetXYZs;
+    /**
+     * Number of targets that have been answered by the line of sight test.
+     */
+    private int noOfLineOfSightTargets = 0;
+    /**
+     * Further source grid cells, from which the search starts at the same
+     * time as from the source grid cell.
+     */
+    private ArrayList < GridCell > additionalSourceCells =
+                                                   new ArrayList < GridCell >();
+    /**
+     * AtomGrid object, if the Solvent-Path distance is calculated between
+     * atoms.
+     */
+    private AtomGrid atomGrid;
 
     //--------------------------------------------------------------------------
     /**
@@ -83,20 +148,11 @@ public class SolventPathDistance {
                                final AtomList atoms2,
                                final AtomGrid atomGrid) {
 
-        Atom atom1small = atom1.copy();
-        atom1small.setVanDerWaalsRadius();
-        atom1small.setVanDerWaalsRadius(atom1small.getVanDerWaalsRadius()
-                                        +
-                                        Constants.SOLVENT_RADIUS);
-        ArrayList < GridCell > atom1Cells = atomGrid.getAllGridCells(
-                                                                    atom1small
-                                                                    );
-        for (GridCell cell1 : atom1Cells) {
-            // set all cells that are occupied by this atom to unoccupied
-             cell1.reset();
-        }
+        SolventPathDistance.setUnoccupied(atom1, atomGrid);
         ArrayList < GridCell > atom2cells = new ArrayList < GridCell >();
+        this.targetXYZs = new ArrayList < Point3f >();
         for (Atom atom2 : atoms2) {
+            this.targetXYZs.add(atom2.getXYZ());
             Atom atom2small = atom2.copy();
             atom2small.setVanDerWaalsRadius();
             atom2small.setVanDerWaalsRadius(atom2small.getVanDerWaalsRadius()
@@ -110,7 +166,7 @@ public class SolventPathDistance {
             // error would occur. Create a dummy grid cell in those cases.
             if (atom2cell == null) {
                 atom2cell = new GridCell(atom2.getXYZ(),
-                                         GridCell.getSize());
+                                         atomGrid.getCellSize());
                 atom2cell.setIndices(new Point3i(Integer.MAX_VALUE,
                                                  Integer.MAX_VALUE,
                                                  Integer.MAX_VALUE));
@@ -125,8 +181,125 @@ public class SolventPathDistance {
             }
         }
         this.grid = atomGrid;
+        this.atomGrid = atomGrid;
         this.sourceCell = atomGrid.get(atom1);
         this.targetCells = atom2cells;
+        this.sourceXYZ = atom1.getXYZ();
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets all grid cells to unoccupied that are occupied by an atom together
+     * with a solvent molecule around it, so that paths can start at the atom.
+     * @param atom
+     *        - Atom object.
+     * @param atomGrid
+     *        - Grid build on protein structure.
+     */
+    private static void setUnoccupied(final Atom atom,
+                                      final AtomGrid atomGrid) {
+        Atom atomSmall = atom.copy();
+        atomSmall.setVanDerWaalsRadius();
+        atomSmall.setVanDerWaalsRadius(atomSmall.getVanDerWaalsRadius()
+                                       +
+                                       Constants.SOLVENT_RADIUS);
+        ArrayList < GridCell > atomCells = atomGrid.getAllGridCells(atomSmall);
+        for (GridCell cell : atomCells) {
+            // set all cells that are occupied by this atom to unoccupied
+            cell.reset();
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Adds a further source atom, e.g. another atom of the same residue, from
+     * which the search starts at the same time as from the first source atom.
+     * Each target then gets the distance to its nearest source atom assigned.
+     * Only applicable if this object has been constructed from atoms.
+     * @param atom
+     *        - Atom object to be connected by the virtual cross-linker.
+     */
+    public final void addSourceAtom(final Atom atom) {
+        SolventPathDistance.setUnoccupied(atom, this.atomGrid);
+        GridCell cell = this.atomGrid.get(atom);
+        if (cell != null) {
+            this.additionalSourceCells.add(cell);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets the algorithm which will be used to find the shortest paths.
+     * @param shortestPathAlgorithm
+     *        - ShortestPathAlgorithms object.
+     */
+    public final void setShortestPathAlgorithm(
+                          final ShortestPathAlgorithms shortestPathAlgorithm) {
+        this.algorithm = shortestPathAlgorithm;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the search should stop as soon as the distances to all
+     * targets are final.
+     * @param earlyTermination
+     *        - boolean value, {@code TRUE} to stop the search early.
+     */
+    public final void setEarlyTermination(final boolean earlyTermination) {
+        this.doEarlyTermination = earlyTermination;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the shortest paths should be traced back from the targets
+     * to the source, e.g. for the visualization of paths in PyMOL.
+     * @param backtracking
+     *        - boolean value, {@code TRUE} to trace back the shortest paths.
+     */
+    public final void setBacktracking(final boolean backtracking) {
+        this.doBacktracking = backtracking;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the search should be bounded to the grid cells that can
+     * lie on a path to any target. Distances to the targets are the same,
+     * but all other distances in the grid remain incomplete.
+     * @param boundedSearch
+     *        - boolean value, {@code TRUE} to bound the search.
+     * @see ShortestPathSearch#setBoundedByTargets(boolean)
+     */
+    public final void setBoundedSearch(final boolean boundedSearch) {
+        this.doBoundedSearch = boundedSearch;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether targets, to which the straight line from the source runs
+     * entirely through unoccupied grid cells, should get the Euclidean
+     * distance assigned without a search on the grid.
+     * @param lineOfSight
+     *        - boolean value, {@code TRUE} to test the line of sight.
+     * @see GridUtilities#isInLineOfSight(Grid, int, int)
+     */
+    public final void setLineOfSight(final boolean lineOfSight) {
+        this.doLineOfSight = lineOfSight;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Sets whether the shortest paths found on the grid should be shortened
+     * by straight lines that run entirely through unoccupied grid cells, and
+     * the lengths of the shortened paths be assigned as distances. Paths on
+     * the grid zig-zag between grid cell centres, so that shortened paths
+     * depend less on the grid cell size.
+     * @param pathSmoothing
+     *        - boolean value, {@code TRUE} to shorten the paths.
+     * @see GridUtilities#getShortenedLength(Grid, int[])
+     */
+    public final void setPathSmoothing(final boolean pathSmoothing) {
+        this.doPathSmoothing = pathSmoothing;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the number of targets that have been answered by the line of
+     * sight test in the last call of {@link #getShortestPath(float)}.
+     * @return integer value representing the number of targets.
+     */
+    public final int getNumberOfLineOfSightTargets() {
+        return this.noOfLineOfSightTargets;
     }
     //--------------------------------------------------------------------------
     /**
@@ -141,20 +314,278 @@ public class SolventPathDistance {
      *         sourceCell is located within a closed cavity.
      */
     public final ArrayList < Path > getShortestPath(final float maxDist) {
-        // initialize distance calculation
-        BreadthFirstSearch shortestPathAlgo = new BreadthFirstSearch(
-                                                               this.grid,
-                                                               this.sourceCell,
-                                                               this.targetCells,
-                                                               maxDist
-                                                                    );
-        ArrayList < Path > paths = shortestPathAlgo.findShortestPath();
-        if (!shortestPathAlgo.hasSucceeded()) {
-            return new ArrayList < Path >();
+        // the fast marching method assigns distances that are shorter than on
+        // the 26-neighbour graph, from which the flood fill, the early
+        // termination and the bounds of the search are derived.
+        boolean isGraphSearch = this.algorithm != ShortestPathAlgorithms.FMM;
+        // the flood fill, the line of sight test and the bounds all start from
+        // a single source.
+        boolean isSingleSource = this.additionalSourceCells.isEmpty();
+        // targets in line of sight are answered without any search.
+        boolean[] isInLineOfSight = new boolean[this.targetCells.size()];
+        this.noOfLineOfSightTargets = 0;
+        for (int i = 0; i < this.targetCells.size(); i++) {
+            GridCell target = this.targetCells.get(i);
+            if (this.doLineOfSight
+                &&
+                isSingleSource
+                &&
+                this.sourceCell != null
+                &&
+                target.getGrid() == this.grid
+                &&
+                target.getIndex() != -1
+                &&
+                GridUtilities.isInLineOfSight(this.grid,
+                                              this.sourceCell.getIndex(),
+                                              target.getIndex())) {
+                isInLineOfSight[i] = true;
+                this.noOfLineOfSightTargets++;
+            }
+        }
+        // a flood fill tells without any distances, which targets are out of
+        // reach and whether the source can escape beyond the maximum distance.
+        // It is skipped if no target is left that might be out of reach, or
+        // if the search expands all grid cells within the maximum distance
+        // anyway, as it is neither bounded nor terminates early.
+        BitboardFloodFill floodFill = null;
+        if (isGraphSearch
+            &&
+            isSingleSource
+            &&
+            (this.doBoundedSearch || this.doEarlyTermination)
+            &&
+            this.noOfLineOfSightTargets < this.targetCells.size()
+            &&
+            this.sourceCell != null
+            &&
+            this.sourceCell.getGrid() == this.grid
+            &&
+            this.sourceCell.getIndex() != -1) {
+            floodFill = new BitboardFloodFill(this.grid,
+                                              this.sourceCell.getIndex(),
+                                              maxDist,
+                                              this.getTargetIndices(
+                                                              isInLineOfSight));
+        }
+        // targets in line of sight or out of reach are excluded from the
+        // search.
+        ArrayList < GridCell > searchTargets = new ArrayList < GridCell >();
+        boolean[] isOutOfReach = new boolean[this.targetCells.size()];
+        for (int i = 0; i < this.targetCells.size(); i++) {
+            GridCell target = this.targetCells.get(i);
+            if (isInLineOfSight[i]) {
+                continue;
+            } else if (floodFill != null
+                       &&
+                       target.getGrid() == this.grid
+                       &&
+                       target.getIndex() != -1
+                       &&
+                       !floodFill.isReached(target.getIndex())) {
+                isOutOfReach[i] = true;
+            } else {
+                searchTargets.add(target);
+            }
+        }
+        boolean isExcluded = searchTargets.size() < this.targetCells.size();
+        boolean canEscape = floodFill != null && floodFill.hasEscaped();
+
+        ArrayList < Path > searchPaths = new ArrayList < Path >();
+        if (!searchTargets.isEmpty() || !canEscape || !this.doBoundedSearch) {
+            // without any target left, the search only has to find out
+            // whether the source is located within a closed cavity.
+            boolean earlyTermination = this.doEarlyTermination
+                                       ||
+                                       (isExcluded && searchTargets.isEmpty());
+            earlyTermination &= isGraphSearch;
+            // a bounded search can only succeed if the source can escape.
+            boolean isBounded = isGraphSearch
+                                &&
+                                isSingleSource
+                                &&
+                                this.doBoundedSearch
+                                &&
+                                (floodFill == null || canEscape);
+            ShortestPathSearch shortestPathAlgo = this.getSearch(searchTargets,
+                                                                 maxDist);
+            shortestPathAlgo.setEarlyTermination(earlyTermination);
+            shortestPathAlgo.setBoundedByTargets(isBounded);
+            if (floodFill != null) {
+                shortestPathAlgo.setEscapeProbe(canEscape);
+            }
+            searchPaths = shortestPathAlgo.findShortestPath();
+            if (!shortestPathAlgo.hasSucceeded() && isBounded) {
+                // the bounded search could not rule out a closed cavity around
+                // the source, so repeat the search unbounded.
+                this.grid.resetSoft();
+                shortestPathAlgo = this.getSearch(searchTargets, maxDist);
+                shortestPathAlgo.setEarlyTermination(earlyTermination);
+                searchPaths = shortestPathAlgo.findShortestPath();
+            }
+            if (!shortestPathAlgo.hasSucceeded()) {
+                return new ArrayList < Path >();
+            }
+            if (this.doPathSmoothing) {
+                for (int i = 0; i < searchPaths.size(); i++) {
+                    this.shortenPath(searchPaths.get(i), searchTargets.get(i));
+                }
+            }
+        }
+        if (!isExcluded) {
+            return searchPaths;
+        }
+        ArrayList < Path > paths = new ArrayList < Path >();
+        int s = 0;
+        for (int i = 0; i < this.targetCells.size(); i++) {
+            if (isInLineOfSight[i]) {
+                paths.add(this.getLineOfSightPath(i));
+            } else if (isOutOfReach[i]) {
+                Path path = new Path();
+                GridCell target = this.targetCells.get(i).copy();
+                target.setDistance(Constants.DEFAULT_GRID_DISTANCE);
+                path.add(target);
+                paths.add(path);
+            } else {
+                paths.add(searchPaths.get(s++));
+            }
         }
         return paths;
     }
     //--------------------------------------------------------------------------
+    /**
+     * Returns the flat indices of all target cells that lie on the grid and
+     * are not in line of sight.
+     * @param isInLineOfSight
+     *        - Array of boolean values indicating for each target cell
+     *          whether it is in line of sight.
+     * @return Array of integer values holding the flat indices.
+     */
+    private int[] getTargetIndices(final boolean[] isInLineOfSight) {
+        int n = 0;
+        int[] indices = new int[this.targetCells.size()];
+        for (int i = 0; i < this.targetCells.size(); i++) {
+            GridCell target = this.targetCells.get(i);
+            if (!isInLineOfSight[i]
+                &&
+                target.getGrid() == this.grid
+                &&
+                target.getIndex() != -1) {
+                indices[n++] = target.getIndex();
+            }
+        }
+        int[] onGrid = new int[n];
+        System.arraycopy(indices, 0, onGrid, 0, n);
+        return onGrid;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns a new search object of the chosen algorithm.
+     * @param targets
+     *        - List of target grid cells.
+     * @param maxDist
+     *        - float value representing the maximum allowed distance between
+     *          source and target.
+     * @return ShortestPathSearch object.
+     */
+    private ShortestPathSearch getSearch(final ArrayList < GridCell > targets,
+                                         final float maxDist) {
+        ShortestPathSearch shortestPathAlgo;
+        if (this.algorithm == ShortestPathAlgorithms.FMM) {
+            shortestPathAlgo = new FastMarchingSearch(this.grid,
+                                                      this.sourceCell,
+                                                      targets,
+                                                      maxDist);
+        } else if (this.algorithm == ShortestPathAlgorithms.ASTAR
+            &&
+            targets.size() <= Constants.MAX_GOAL_DIRECTED_TARGETS) {
+            shortestPathAlgo = new AStarSearch(this.grid,
+                                               this.sourceCell,
+                                               targets,
+                                               maxDist);
+        } else if (this.algorithm == ShortestPathAlgorithms.DIJKSTRA
+                   ||
+                   this.algorithm == ShortestPathAlgorithms.ASTAR) {
+            shortestPathAlgo = new DijkstraSearch(this.grid,
+                                                  this.sourceCell,
+                                                  targets,
+                                                  maxDist);
+        } else {
+            shortestPathAlgo = new BreadthFirstSearch(this.grid,
+                                                      this.sourceCell,
+                                                      targets,
+                                                      maxDist);
+        }
+        for (GridCell cell : this.additionalSourceCells) {
+            shortestPathAlgo.addSource(cell);
+        }
+        // paths must be traced back to be shortened.
+        shortestPathAlgo.setBacktracking(this.doBacktracking
+                                         ||
+                                         this.doPathSmoothing);
+        return shortestPathAlgo;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Shortens a path that has been traced back from a target cell by
+     * straight lines through the solvent and assigns the length of the
+     * shortened path to the target, if it is shorter than its distance.
+     * @param path
+     *        - Path object as returned by the search.
+     * @param target
+     *        - GridCell object of the target, to which the path leads.
+     */
+    private void shortenPath(final Path path, final GridCell target) {
+        GridCell targetCopy = path.get(
+                              ShortestPathSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
+                                      );
+        int[] traced = path.getTracedCells();
+        if (targetCopy.getDistance() == Constants.DEFAULT_GRID_DISTANCE
+            ||
+            target.getGrid() != this.grid
+            ||
+            target.getIndex() == -1
+            ||
+            traced.length == 0) {
+            return;
+        }
+        int[] indices = new int[traced.length + 1];
+        indices[0] = target.getIndex();
+        System.arraycopy(traced, 0, indices, 1, traced.length);
+        float length = GridUtilities.getShortenedLength(this.grid, indices);
+        if (length < targetCopy.getDistance()) {
+            targetCopy.setDistance(length);
+        }
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Returns the path of a target in line of sight, which holds the target
+     * cell with the Euclidean distance to the source and, if paths are traced
+     * back, the source cell.
+     * @param i
+     *        - integer value representing the position of the target in the
+     *          list of target cells.
+     * @return Path object.
+     */
+    private Path getLineOfSightPath(final int i) {
+        GridCell target = this.targetCells.get(i).copy();
+        if (this.sourceXYZ != null) {
+            target.setDistance(Mathematics.distance(this.sourceXYZ,
+                                                    this.targetXYZs.get(i)));
+        } else {
+            target.setDistance(Mathematics.distance(this.sourceCell.getXYZ(),
+                                                    target.getXYZ()));
+        }
+        Path path = new Path();
+        path.add(target);
+        if (this.doBacktracking) {
+            GridCell source = this.sourceCell.copy();
+            source.setDistance(0.0f);
+            path.add(source);
+        }
+        return path;
+    }
+    //--------------------------------------------------------------------------
     /**
      * Extract the distance of a target cell to its source cell from a Path
      * object.
@@ -166,7 +597,7 @@ public class SolventPathDistance {
      */
     public static float extractTargetDistances(final Path path) {
         return path.get(
-                        BreadthFirstSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
+                        ShortestPathSearch.CELL_NO_OF_TARGET_CELL_IN_PATH
                        ).getDistance();
     }
     //--------------------------------------------------------------------------
@@ -0,0 +1,76 @@
+/*
+ * (C) 2010 Abdullah Kahraman
+ *
+ * This software is part of the open-source project "Xwalk". You can use this
+ * software under the terms of the
+ * Creative Commons Attribution-NonCommercial-ShareAlike 3.0 Unported License
+ * (http://creativecommons.org/licenses/by-nc-sa/3.0/).
+ * This means that you
+ * 1.) can copy, modify, distribute the software
+ * 2.) must give credit to the author
+ * 3.) must not use this work for commercial purposes
+ * 4.) must license derivative works under the same or a similar license.
+ */
+
+import structure.grid.Grid;
+import structure.grid.GridArena;
+import structure.math.Point3f;
+
+/**
+ * Regression check for reusing a single grid arena for consecutive grids of
+ * different sizes, on and outside of the Java heap. A grid of 10x10x1 cells
+ * and one of 10x10x5 cells fit into the same page of the distance storage,
+ * but the larger grid needs more long values for its occupation status.
+ * @author Abdullah Kahraman
+ * @version 0.1
+ * @since 0.1
+ */
+public final class GridArenaRegression {
+
+    //--------------------------------------------------------------------------
+    /**
+     * Constructor.
+     */
+    private GridArenaRegression() {
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Builds a small and then a larger grid on the same arena, occupies every
+     * grid cell of the larger grid and checks that all of them are occupied.
+     * @param offHeap
+     *        - boolean value, {@code TRUE} to hold the storage of the arena
+     *          outside of the Java heap.
+     * @return {@code TRUE} if all grid cells are occupied, {@code FALSE}
+     *         otherwise.
+     */
+    private static boolean check(final boolean offHeap) {
+        GridArena arena = new GridArena(offHeap);
+        Point3f min = new Point3f(0, 0, 0);
+        new Grid(min, new Point3f(10, 10, 1), 1, arena);
+        Grid grid = new Grid(min, new Point3f(10, 10, 5), 1, arena);
+        for (int index = 0; index < grid.size(); index++) {
+            grid.setOccupation(index);
+        }
+        for (int index = 0; index < grid.size(); index++) {
+            if (!grid.isOccupied(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //--------------------------------------------------------------------------
+    /**
+     * Main method.
+     * @param args
+     *        - Commandline arguments, which are ignored.
+     */
+    public static void main(final String[] args) {
+        boolean onHeap = GridArenaRegression.check(false);
+        boolean offHeap = GridArenaRegression.check(true);
+        System.out.println("arena on heap: " + (onHeap ? "OK" : "FAILED"));
+        System.out.println("arena off heap: " + (offHeap ? "OK" : "FAILED"));
+        if (!onHeap || !offHeap) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+#!/bin/sh
+# Regression checks on the barnase-barstar complex 1brs.pdb. Run from within
+# this directory after compiling Xwalk into ../bin/. The output of each
+# command is compared to the expected output in expected/, which must only
+# change together with a deliberate change of Xwalk's results.
+
+XWALK="java -Xmx256m -cp ../bin/ Xwalk -infile 1brs.pdb"
+TMP=`mktemp -d`
+FAILED=0
+
+	# check <name> <expected> <arguments>
+	# Compares the output of Xwalk with <arguments> to expected/<expected>.
+check() {
+    name=$1
+    expected=$2
+    shift 2
+    $XWALK "$@" > $TMP/$name.txt 2> /dev/null
+    if diff expected/$expected.txt $TMP/$name.txt > $TMP/$name.diff; then
+        echo "OK     $name"
+    else
+        echo "FAILED $name"
+        cat $TMP/$name.diff
+        FAILED=1
+    fi
+}
+
+	# SASD between beta-carbon atoms of lysines without side chains.
+check cb_bb cb_bb -aa1 lys -aa2 lys -a1 cb -a2 cb -max 21.4 -bb
+
+	# SASD between all atoms of lysines up-to 30 Angstroem.
+check lys lys -aa1 lys -aa2 lys -max 30
+
+	# Reading the cross-links back in through -dist must reproduce the
+	# distances of the commandline selection.
+check lys_dist lys -aa1 lys -aa2 lys -max 30 -dist expected/lys.txt
+
+	# Choosing source atoms by a greedy cover may change distances slightly.
+check lys_cover lys_cover -aa1 lys -aa2 lys -max 30 -cover
+
+	# Other graph searches, early termination, off-heap grids and threads
+	# must not change any distance.
+check lys_dijkstra lys -aa1 lys -aa2 lys -max 30 -search DIJKSTRA
+check lys_astar lys -aa1 lys -aa2 lys -max 30 -search ASTAR
+check lys_early lys -aa1 lys -aa2 lys -max 30 -early
+check lys_offheap lys -aa1 lys -aa2 lys -max 30 -offheap
+check lys_threads lys -aa1 lys -aa2 lys -max 30 -threads 2 -offheap -early
+
+	# The fast marching method, residue distances, the line of sight test,
+	# path smoothing and the complex grid change distances by design.
+check lys_fmm lys_fmm -aa1 lys -aa2 lys -max 30 -search FMM
+check lys_residue lys_residue -aa1 lys -aa2 lys -max 30 -residue
+check lys_los lys_los -aa1 lys -aa2 lys -max 30 -los
+check lys_smooth lys_smooth -aa1 lys -aa2 lys -max 30 -smooth
+check lys_raster lys_raster -aa1 lys -aa2 lys -max 30 -raster
+
+	# Reusing a grid arena for a small and then a larger grid must grow the
+	# occupation status.
+javac -cp ../bin/ -d $TMP GridArenaRegression.java
+if java -cp ../bin/:$TMP GridArenaRegression > $TMP/arena.txt 2>&1; then
+    echo "OK     arena"
+else
+    echo "FAILED arena"
+    cat $TMP/arena.txt
+    FAILED=1
+fi
+
+rm -rf $TMP
+exit $FAILED